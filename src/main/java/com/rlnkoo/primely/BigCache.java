@@ -0,0 +1,141 @@
+package com.rlnkoo.primely;
+
+import java.math.BigInteger;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Thread-safe, size-bounded LRU cache keyed on BigInteger, with hit/miss/eviction counters.
+ *
+ * Keys are spread over up to {@value #SEGMENTS} independently locked access-ordered segments,
+ * whose capacities add up to {@code maxEntries}. Values live on the heap as they are, or, with
+ * a {@link Codec}, as compact byte arrays decoded on every hit (each hit then gets a fresh copy).
+ * Values are computed outside the locks, so two threads missing on the same key may both compute it.
+ */
+public final class BigCache<V> {
+    private static final int SEGMENTS = 16;
+
+    /** Serialized storage for values: {@code decode(encode(v))} must equal v. */
+    public interface Codec<V> {
+        byte[] encode(V value);
+        V decode(byte[] bytes);
+    }
+
+    /** Counters since creation or the last {@link #clear()}. */
+    public record Stats(long hits, long misses, long evictions, long size) {
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+
+    private final Segment[] segments;
+    private final Codec<V> codec;
+    private final int maxEntries;
+    private final LongAdder hits = new LongAdder(), misses = new LongAdder(), evictions = new LongAdder();
+
+    /** On-heap cache of at most {@code maxEntries} values. */
+    public BigCache(int maxEntries) {
+        this(maxEntries, null);
+    }
+
+    /** Cache of at most {@code maxEntries} values, stored through {@code codec} unless it is null. */
+    public BigCache(int maxEntries, Codec<V> codec) {
+        if (maxEntries < 1) throw new IllegalArgumentException("maxEntries must be >= 1");
+        this.maxEntries = maxEntries;
+        this.codec = codec;
+        segments = new Segment[Math.min(SEGMENTS, Integer.highestOneBit(maxEntries))];
+        int k = segments.length;
+        for (int i = 0; i < k; i++) segments[i] = new Segment(maxEntries / k + (i < maxEntries % k ? 1 : 0), evictions);
+    }
+
+    public int maxEntries() {
+        return maxEntries;
+    }
+
+    /** Whether values are kept serialized. */
+    public boolean serialized() {
+        return codec != null;
+    }
+
+    /** The cached value for {@code key}, or null; counts a hit or a miss. */
+    public V get(BigInteger key) {
+        Segment s = segment(key);
+        Object o;
+        synchronized (s) { o = s.get(key); }
+        if (o == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return unwrap(o);
+    }
+
+    /** Stores {@code value} (not null) under {@code key}, evicting the least recently used entry if full. */
+    public void put(BigInteger key, V value) {
+        Object o = codec == null ? value : codec.encode(value);
+        Segment s = segment(key);
+        synchronized (s) { s.put(key, o); }
+    }
+
+    /**
+     * The cached value for {@code key}, or {@code compute}'s result, which is stored unless it is
+     * null. Returns what the caller should use: with a codec, a freshly decoded copy.
+     */
+    public V computeIfAbsent(BigInteger key, Function<BigInteger, V> compute) {
+        V v = get(key);
+        if (v != null) return v;
+        v = compute.apply(key);
+        if (v != null) put(key, v);
+        return v;
+    }
+
+    public void remove(BigInteger key) {
+        Segment s = segment(key);
+        synchronized (s) { s.remove(key); }
+    }
+
+    /** Drops every entry and resets the counters. */
+    public void clear() {
+        for (Segment s : segments) synchronized (s) { s.clear(); }
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+    }
+
+    public Stats stats() {
+        long size = 0;
+        for (Segment s : segments) synchronized (s) { size += s.size(); }
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V unwrap(Object o) {
+        return codec == null ? (V) o : codec.decode((byte[]) o);
+    }
+
+    private Segment segment(BigInteger key) {
+        int h = key.hashCode();
+        return segments[(h ^ (h >>> 16)) & (segments.length - 1)];
+    }
+
+    private static final class Segment extends LinkedHashMap<BigInteger, Object> {
+        private static final long serialVersionUID = 1L;
+        private final int capacity;
+        private final LongAdder evictions;
+
+        Segment(int capacity, LongAdder evictions) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.evictions = evictions;
+        }
+
+        @Override protected boolean removeEldestEntry(Map.Entry<BigInteger, Object> eldest) {
+            if (size() <= capacity) return false;
+            evictions.increment();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.rlnkoo.primely;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+
+/**
+ * Sequential segment producer for {@link SegmentedSieve}, with Oliveira e Silva style buckets.
+ *
+ * Sieving primes below the segment size hit every segment and keep a running offset. Larger
+ * ones hit a segment at most once; each sits in the bucket of the segment holding its next odd
+ * multiple and is moved on after marking, so a segment only touches the primes that actually
+ * hit it. Buckets are chains of fixed-size blocks recycled through a free list.
+ *
+ * Base primes are never materialised: they come, ascending, from a nested sieve over
+ * [0, √to] and are activated once the sieve reaches their square (or the range start). A prime
+ * with no multiple left in the range is dropped, so memory stays bounded by the primes that
+ * still have work to do.
+ */
+final class BucketSieve {
+    private static final int BLOCK = 1024;
+    /** Base primes up to this one are tiled by {@link SegmentedSieve#presieve}. */
+    private static final int LAST_PATTERN_PRIME = 17;
+
+    private static final class Block {
+        final long[] e = new long[BLOCK];  // prime << 32 | bit offset in the target segment
+        int n;
+        Block next;
+    }
+
+    final long[] buf;
+    long lo;                        // start of the current segment (even)
+    int bits;                       // odd numbers in the current segment
+
+    private final long to, totalBits;
+    private final int segBits;
+    private long next, seg = -1;
+
+    private final Spliterator.OfLong base;
+    private final LongConsumer take = x -> taken = x;
+    private long taken;
+    private long pending;           // next base prime not yet activated, 0 once exhausted
+    private int[] small = new int[64], smallNext = new int[64];
+    private int nSmall;
+    private final Block[] ring;
+    private Block free;
+
+    /** Odd numbers in [lo0, to), lo0 even, in segments of {@code segBits} (a multiple of 64). */
+    BucketSieve(long lo0, long to, int segBits) {
+        this.to = to;
+        this.next = lo0;
+        this.totalBits = to - lo0 >= 2 ? (to - lo0) >>> 1 : 0;
+        this.segBits = (int) Math.min(segBits, (totalBits + 63) & ~63L);
+        this.buf = new long[Math.max(1, this.segBits >>> 6)];
+        long root = isqrt(to - 1);
+        this.base = root > LAST_PATTERN_PRIME ? new SegmentedSieve.Cursor(0, root + 1, 1 << 16) : null;
+        this.ring = new Block[(int) (root / Math.max(1, this.segBits)) + 2];
+        this.pending = nextBase();
+    }
+
+    /** Sieves the next segment into {@link #buf}; false once the range is exhausted. */
+    boolean next() {
+        if (to - next < 2) return false;
+        lo = next;
+        bits = (int) Math.min(segBits, (to - lo) >>> 1);
+        next = lo + 2L * bits;
+        seg++;
+        SegmentedSieve.presieve(lo, bits, buf);
+        activate(next - 1);
+
+        for (int i = 0; i < nSmall; i++) {
+            int p = small[i], k = smallNext[i];
+            for (; k < bits; k += p) buf[k >>> 6] |= 1L << k;
+            smallNext[i] = k - bits;
+        }
+
+        int slot = (int) (seg % ring.length);
+        Block b = ring[slot];
+        ring[slot] = null;
+        long segStart = seg * segBits;
+        while (b != null) {
+            for (int i = 0; i < b.n; i++) {
+                long e = b.e[i], p = e >>> 32;
+                int k = (int) e;
+                buf[k >>> 6] |= 1L << k;
+                schedule(p, segStart + k + p);
+            }
+            Block done = b;
+            b = b.next;
+            done.next = free;
+            free = done;
+        }
+        return true;
+    }
+
+    /** Brings in every base prime whose square is ≤ last. */
+    private void activate(long last) {
+        while (pending != 0 && pending * pending <= last) {
+            long p = pending;
+            long m = p * p;
+            if (m <= lo) m = ((lo / p + 1) | 1) * p;     // first odd multiple above lo (wraps harmlessly near 2^63)
+            long k = (m - lo - 1) >>> 1;
+            if (p < segBits) {
+                if (nSmall == small.length) {
+                    small = Arrays.copyOf(small, nSmall * 2);
+                    smallNext = Arrays.copyOf(smallNext, nSmall * 2);
+                }
+                small[nSmall] = (int) p;
+                smallNext[nSmall++] = (int) k;
+            } else {
+                schedule(p, seg * segBits + k);     // may land in this segment's own bucket
+            }
+            pending = nextBase();
+        }
+    }
+
+    /** Files p under the segment holding global bit index g, unless g is past the range. */
+    private void schedule(long p, long g) {
+        if (g >= totalBits) return;
+        int slot = (int) ((g / segBits) % ring.length);
+        Block b = ring[slot];
+        if (b == null || b.n == BLOCK) {
+            Block nb = free;
+            if (nb != null) free = nb.next;
+            else nb = new Block();
+            nb.n = 0;
+            nb.next = b;
+            ring[slot] = b = nb;
+        }
+        b.e[b.n++] = p << 32 | (g % segBits);
+    }
+
+    private long nextBase() {
+        while (base != null && base.tryAdvance(take)) {
+            if (taken > LAST_PATTERN_PRIME) return taken;
+        }
+        return 0;
+    }
+
+    /** ⌊√n⌋ for n ≥ 0. */
+    static long isqrt(long n) {
+        if (n < 0) return 0;
+        long r = (long) Math.sqrt((double) n);
+        while (r * r > n) r--;
+        while (r < 3037000499L && (r + 1) * (r + 1) <= n) r++;     // (r+1)² must not overflow
+        return r;
+    }
+}
@@ -0,0 +1,222 @@
+package com.rlnkoo.primely;
+
+import com.rlnkoo.primely.Factorization.Status;
+import com.rlnkoo.primely.Proofs.BlsCert;
+import com.rlnkoo.primely.Proofs.Part;
+import com.rlnkoo.primely.Proofs.PocklingtonCert;
+import com.rlnkoo.primely.Proofs.PrattCert;
+import com.rlnkoo.primely.Proofs.PrimeCertificate;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * The shared {@link BigCache}s behind {@link Factorizer#factor(BigInteger)},
+ * {@link Factorizer#factorAsync}, the primality verdicts of {@link Factorization} and the
+ * certificates of {@link Proofs}.
+ *
+ * Only complete factorizations of numbers of 64 bits or more are cached; smaller ones are
+ * cheaper to redo than to look up.
+ */
+public final class Caches {
+    public static final int DEFAULT_ENTRIES = 4096;
+
+    private static volatile BigCache<Factorization> factorizations = new BigCache<>(DEFAULT_ENTRIES);
+    private static volatile BigCache<Boolean> primality = new BigCache<>(4 * DEFAULT_ENTRIES);
+    private static volatile BigCache<PrimeCertificate> certificates = new BigCache<>(DEFAULT_ENTRIES);
+
+    private Caches() {}
+
+    public static BigCache<Factorization> factorizations() {
+        return factorizations;
+    }
+
+    /** Probable-primality verdicts for numbers above 2⁶³. */
+    public static BigCache<Boolean> primality() {
+        return primality;
+    }
+
+    public static BigCache<PrimeCertificate> certificates() {
+        return certificates;
+    }
+
+    /**
+     * Replaces the shared caches with empty ones holding {@code maxEntries} factorizations and
+     * certificates (and four times as many verdicts); with {@code serialized} the factorizations
+     * and certificates are kept as compact byte arrays.
+     */
+    public static void configure(int maxEntries, boolean serialized) {
+        factorizations = new BigCache<>(maxEntries, serialized ? FACTORIZATION_CODEC : null);
+        primality = new BigCache<>(4 * maxEntries);
+        certificates = new BigCache<>(maxEntries, serialized ? CERTIFICATE_CODEC : null);
+    }
+
+    /** Empties all shared caches and resets their counters. */
+    public static void clear() {
+        factorizations.clear();
+        primality.clear();
+        certificates.clear();
+    }
+
+    /** Factor, exponent, status and finder per entry, then the flag and the method tag. */
+    static final BigCache.Codec<Factorization> FACTORIZATION_CODEC = new BigCache.Codec<>() {
+        @Override public byte[] encode(Factorization f) {
+            return write(out -> {
+                out.writeInt(f.factors().size());
+                for (var e : f.factors().entrySet()) {
+                    writeBig(out, e.getKey());
+                    out.writeInt(e.getValue());
+                    Status s = f.status().get(e.getKey());
+                    out.writeByte(s == null ? -1 : s.ordinal());
+                    String by = f.foundBy().get(e.getKey());
+                    out.writeBoolean(by != null);
+                    if (by != null) out.writeUTF(by);
+                }
+                out.writeBoolean(f.complete());
+                out.writeUTF(f.method());
+            });
+        }
+
+        @Override public Factorization decode(byte[] bytes) {
+            return read(bytes, in -> {
+                Map<BigInteger,Integer> factors = new TreeMap<>();
+                Map<BigInteger,Status> status = new TreeMap<>();
+                Map<BigInteger,String> foundBy = new TreeMap<>();
+                for (int i = in.readInt(); i > 0; i--) {
+                    BigInteger p = readBig(in);
+                    factors.put(p, in.readInt());
+                    int s = in.readByte();
+                    if (s >= 0) status.put(p, Status.values()[s]);
+                    if (in.readBoolean()) foundBy.put(p, in.readUTF());
+                }
+                return new Factorization(Collections.unmodifiableMap(factors), in.readBoolean(), in.readUTF(),
+                        Collections.unmodifiableMap(status), Collections.unmodifiableMap(foundBy));
+            });
+        }
+    };
+
+    /**
+     * A tag byte, then the certificate's numbers: Pratt nodes once each, children before parents;
+     * Pocklington and BLS parts with their sub-certificates nested.
+     */
+    static final BigCache.Codec<PrimeCertificate> CERTIFICATE_CODEC = new BigCache.Codec<>() {
+        @Override public byte[] encode(PrimeCertificate c) {
+            return write(out -> writeCert(out, c));
+        }
+
+        @Override public PrimeCertificate decode(byte[] bytes) {
+            return read(bytes, Caches::readCert);
+        }
+    };
+
+    private static void writeCert(DataOutputStream out, PrimeCertificate c) throws IOException {
+        if (c instanceof PrattCert p) {
+            out.writeByte(0);
+            List<PrattCert> nodes = postOrder(p);
+            out.writeInt(nodes.size());
+            for (PrattCert node : nodes) {
+                writeBig(out, node.n());
+                writeBig(out, node.a());
+                out.writeInt(node.factors().size());
+                for (var e : node.factors().entrySet()) {
+                    writeBig(out, e.getKey());
+                    out.writeInt(e.getValue());
+                }
+            }
+        } else if (c instanceof PocklingtonCert p) {
+            out.writeByte(1);
+            writeBig(out, p.n());
+            writeParts(out, p.parts());
+        } else if (c instanceof BlsCert b) {
+            out.writeByte(2);
+            writeBig(out, b.n());
+            writeBig(out, b.d());
+            writeParts(out, b.minus());
+            writeParts(out, b.plus());
+        }
+    }
+
+    private static PrimeCertificate readCert(DataInputStream in) throws IOException {
+        int tag = in.readByte();
+        if (tag == 1) return new PocklingtonCert(readBig(in), readParts(in));
+        if (tag == 2) {
+            BigInteger n = readBig(in), d = readBig(in);
+            List<Part> minus = readParts(in);
+            return new BlsCert(n, minus, d, readParts(in));
+        }
+        Map<BigInteger, PrattCert> byN = new HashMap<>();
+        PrattCert last = null;
+        for (int i = in.readInt(); i > 0; i--) {
+            BigInteger n = readBig(in), a = readBig(in);
+            Map<BigInteger,Integer> factors = new TreeMap<>();
+            for (int j = in.readInt(); j > 0; j--) factors.put(readBig(in), in.readInt());
+            List<PrattCert> children = new ArrayList<>(factors.size());
+            for (BigInteger q : factors.keySet()) children.add(byN.get(q));
+            last = new PrattCert(n, a, Collections.unmodifiableMap(factors), List.copyOf(children));
+            byN.put(n, last);
+        }
+        return last;
+    }
+
+    private static void writeParts(DataOutputStream out, List<Part> parts) throws IOException {
+        out.writeInt(parts.size());
+        for (Part p : parts) {
+            writeBig(out, p.q());
+            out.writeInt(p.e());
+            writeBig(out, p.w());
+            writeCert(out, p.cert());
+        }
+    }
+
+    private static List<Part> readParts(DataInputStream in) throws IOException {
+        List<Part> parts = new ArrayList<>();
+        for (int i = in.readInt(); i > 0; i--) parts.add(new Part(readBig(in), in.readInt(), readBig(in), readCert(in)));
+        return List.copyOf(parts);
+    }
+
+    private static List<PrattCert> postOrder(PrattCert root) {
+        List<PrattCert> out = new ArrayList<>();
+        postOrder(root, new HashSet<>(), out);
+        return out;
+    }
+
+    private static void postOrder(PrattCert c, Set<BigInteger> seen, List<PrattCert> out) {
+        if (!seen.add(c.n())) return;
+        for (PrattCert child : c.children()) postOrder(child, seen, out);
+        out.add(c);
+    }
+
+    private interface Writer { void write(DataOutputStream out) throws IOException; }
+    private interface Reader<T> { T read(DataInputStream in) throws IOException; }
+
+    private static byte[] write(Writer w) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            w.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static <T> T read(byte[] bytes, Reader<T> r) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            return r.read(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeBig(DataOutputStream out, BigInteger v) throws IOException {
+        byte[] b = v.toByteArray();
+        out.writeShort(b.length);
+        out.write(b);
+    }
+
+    private static BigInteger readBig(DataInputStream in) throws IOException {
+        byte[] b = new byte[in.readUnsignedShort()];
+        in.readFully(b);
+        return new BigInteger(b);
+    }
+}
@@ -0,0 +1,106 @@
+package com.rlnkoo.primely;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Incremental sieve over the odd candidates base, base+2, base+4, …
+ *
+ * The residues of the starting point modulo every odd prime up to the bound are computed once.
+ * Each window of candidates is then sieved with plain {@code int} arithmetic, and the residues
+ * are stepped forward to the next window; only survivors ever reach a BigInteger.
+ *
+ * In safe mode a candidate q also needs 2q+1 free of small factors, i.e. a second residue
+ * class (q ≡ (p−1)/2) is struck out for every sieving prime p.
+ */
+final class CandidateSieve {
+    static final int DEFAULT_WINDOW = 1 << 12;
+
+    private final int[] primes;         // odd primes ≤ bound
+    private final int[] offsets;        // first window offset k with p | base + 2k
+    private final int[] offsets2;       // safe mode: first k with p | 2(base + 2k) + 1, else null
+    private final int window;
+    private final long[] composite;
+    private BigInteger base;            // value at offset 0 of the current window
+    private int pos;
+
+    /** Sieve from the first odd number ≥ start. */
+    CandidateSieve(BigInteger start, int bound, int window) {
+        this(start, bound, window, false);
+    }
+
+    /** As above; with {@code safe} set, 2q+1 is sieved along with every candidate q. */
+    CandidateSieve(BigInteger start, int bound, int window, boolean safe) {
+        this.base = start.testBit(0) ? start : start.add(BigInteger.ONE);
+        this.window = window;
+        this.composite = new long[(window + 63) >>> 6];
+
+        int[] res = new int[PrimeTable.count(bound)];
+        int cnt = TrialDivision.residues(base, bound, res);
+        int[] all = PrimeTable.table(bound);
+        this.primes = Arrays.copyOfRange(all, 1, cnt);
+        this.offsets = new int[primes.length];
+        this.offsets2 = safe ? new int[primes.length] : null;
+        for (int i = 0; i < primes.length; i++) {
+            long p = primes[i], inv2 = (p + 1) >>> 1, r = res[i + 1];
+            // base + 2k ≡ 0 (mod p)  ⇔  k ≡ −base·2⁻¹
+            offsets[i] = (int) ((p - r) % p * inv2 % p);
+            // base + 2k ≡ (p−1)/2 (mod p)  ⇔  2(base + 2k) + 1 ≡ 0
+            if (safe) offsets2[i] = (int) (((p - 1) / 2 - r + p) % p * inv2 % p);
+        }
+        sieveWindow();
+    }
+
+    /** Sensible bound for candidates of the given size: deeper sieving pays off as BPSW gets dearer. */
+    static int defaultBound(int bits) {
+        return Math.min(1 << 16, Math.max(1 << 10, bits * 16));
+    }
+
+    /** Next candidate with no prime factor ≤ bound (a prime ≤ bound itself is kept). */
+    BigInteger next() {
+        while (true) {
+            int w = pos >>> 6;
+            while (w < composite.length) {
+                long free = ~composite[w] & (-1L << (pos & 63));
+                if (free != 0) {
+                    int k = (w << 6) + Long.numberOfTrailingZeros(free);
+                    if (k >= window) break;
+                    pos = k + 1;
+                    return base.add(BigInteger.valueOf(2L * k));
+                }
+                w++;
+                pos = w << 6;
+            }
+            advance();
+        }
+    }
+
+    private void advance() {
+        base = base.add(BigInteger.valueOf(2L * window));
+        for (int i = 0; i < primes.length; i++) {
+            int p = primes[i];
+            int step = window % p;
+            offsets[i] = (offsets[i] - step + p) % p;
+            if (offsets2 != null) offsets2[i] = (offsets2[i] - step + p) % p;
+        }
+        pos = 0;
+        sieveWindow();
+    }
+
+    private void sieveWindow() {
+        Arrays.fill(composite, 0);
+        // the primes themselves survive: only relevant while the window still covers the bound
+        boolean small = base.bitLength() < 32;
+        long b = small ? base.longValue() : 0;
+        for (int i = 0; i < primes.length; i++) {
+            int p = primes[i];
+            int k = offsets[i];
+            if (small && b + 2L * k == p) k += p;
+            for (; k < window; k += p) composite[k >>> 6] |= 1L << k;
+            if (offsets2 == null) continue;
+            k = offsets2[i];
+            if (small && 2 * (b + 2L * k) + 1 == p) k += p;
+            for (; k < window; k += p) composite[k >>> 6] |= 1L << k;
+        }
+    }
+}
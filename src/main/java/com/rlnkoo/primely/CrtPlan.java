@@ -0,0 +1,101 @@
+package com.rlnkoo.primely;
+
+import java.math.BigInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Chinese-remainder reconstruction over a fixed set of pairwise coprime moduli below 2⁶³, with
+ * everything that depends only on the moduli computed once: their product tree and the
+ * coefficients c_i = (M/m_i)⁻¹ mod m_i.
+ *
+ * A residue vector is then x = Σ r_i·c_i·(M/m_i) mod M, summed up the product tree
+ * (S = S_left·P_right + S_right·P_left), so reconstruction costs a few big multiplications per
+ * tree level and no modular inversion at all.
+ */
+public final class CrtPlan {
+    private final long[] moduli;
+    private final BigInteger[] coeffs;
+    /** tree[0] holds the moduli, tree[h][j] = tree[h−1][2j]·tree[h−1][2j+1] (an odd last node moves up as is). */
+    private final BigInteger[][] tree;
+
+    private CrtPlan(long[] moduli, BigInteger[] coeffs, BigInteger[][] tree) {
+        this.moduli = moduli;
+        this.coeffs = coeffs;
+        this.tree = tree;
+    }
+
+    /** A plan for {@code moduli} (each ≥ 2); throws if two of them share a factor. */
+    public static CrtPlan of(long... moduli) {
+        if (moduli.length == 0) throw new IllegalArgumentException("no moduli");
+        long[] ms = moduli.clone();
+        BigInteger[] leaves = new BigInteger[ms.length];
+        for (int i = 0; i < ms.length; i++) {
+            if (ms[i] < 2) throw new IllegalArgumentException("modulus " + i + " must be >= 2: " + ms[i]);
+            leaves[i] = BigInteger.valueOf(ms[i]);
+        }
+        BigInteger[][] tree = productTree(leaves);
+        BigInteger M = tree[tree.length - 1][0];
+        BigInteger[] coeffs = new BigInteger[ms.length];
+        for (int i = 0; i < ms.length; i++) {
+            BigInteger rest = M.divide(leaves[i]).mod(leaves[i]);
+            if (!rest.gcd(leaves[i]).equals(BigInteger.ONE)) {
+                throw new IllegalArgumentException("modulus " + i + " (" + ms[i] + ") is not coprime to the others");
+            }
+            coeffs[i] = rest.modInverse(leaves[i]);
+        }
+        return new CrtPlan(ms, coeffs, tree);
+    }
+
+    public int size() {
+        return moduli.length;
+    }
+
+    /** The product M of all moduli. */
+    public BigInteger modulus() {
+        return tree[tree.length - 1][0];
+    }
+
+    /** The x in [0, M) with x ≡ residues[i] (mod m_i); residues may be negative or unreduced. */
+    public BigInteger reconstruct(long[] residues) {
+        if (residues.length != moduli.length) {
+            throw new IllegalArgumentException("expected " + moduli.length + " residues, got " + residues.length);
+        }
+        BigInteger[] s = new BigInteger[moduli.length];
+        for (int i = 0; i < s.length; i++) {
+            s[i] = BigInteger.valueOf(Math.floorMod(residues[i], moduli[i])).multiply(coeffs[i]);
+        }
+        for (int h = 1; h < tree.length; h++) {
+            BigInteger[] below = tree[h - 1];
+            BigInteger[] up = new BigInteger[tree[h].length];
+            for (int j = 0; j < up.length; j++) {
+                int l = 2 * j;
+                up[j] = l + 1 < s.length ? s[l].multiply(below[l + 1]).add(s[l + 1].multiply(below[l])) : s[l];
+            }
+            s = up;
+        }
+        return s[0].mod(modulus());
+    }
+
+    /** {@link #reconstruct(long[])} for each vector, spread over the common fork/join pool. */
+    public BigInteger[] reconstructAll(long[][] residues) {
+        BigInteger[] out = new BigInteger[residues.length];
+        IntStream.range(0, residues.length).parallel().forEach(i -> out[i] = reconstruct(residues[i]));
+        return out;
+    }
+
+    private static BigInteger[][] productTree(BigInteger[] leaves) {
+        int levels = 1;
+        for (int n = leaves.length; n > 1; n = (n + 1) / 2) levels++;
+        BigInteger[][] tree = new BigInteger[levels][];
+        tree[0] = leaves;
+        for (int h = 1; h < levels; h++) {
+            BigInteger[] below = tree[h - 1];
+            BigInteger[] up = new BigInteger[(below.length + 1) / 2];
+            for (int j = 0; j < up.length; j++) {
+                up[j] = 2 * j + 1 < below.length ? below[2 * j].multiply(below[2 * j + 1]) : below[2 * j];
+            }
+            tree[h] = up;
+        }
+        return tree;
+    }
+}
@@ -0,0 +1,254 @@
+package com.rlnkoo.primely;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Lenstra's elliptic-curve method behind {@link Factorizer#ecm}, on Montgomery curves
+ * By² = x³ + Ax² + x in {@link MontgomeryContext} form, with x-only projective (X : Z) points.
+ *
+ * Curves and starting points come from Suyama's parametrisation σ ↦ (u, v) = (σ² − 5, 4σ),
+ * which gives every curve a group order divisible by 12. Stage 1 multiplies the point by each
+ * prime power ≤ B1 with the Montgomery ladder and ends with gcd(Z, n).
+ *
+ * Stage 2 is baby-step giant-step over the primes q in (B1, B2]: writing q = mD ± j with D a
+ * primorial and j ≤ D/2 coprime to D, the baby steps jQ are tabled once, the giant steps mDQ
+ * follow by differential addition, and q·Q = O mod p shows up as a zero of X_m·Z_j − X_j·Z_m.
+ * Those differences are multiplied together for one gcd every {@value #CHECK} primes.
+ *
+ * Curves are independent, so {@link #async} runs them on several threads and stops them all at
+ * the first factor.
+ */
+final class Ecm {
+    private static final SecureRandom RNG = new SecureRandom();
+    private static final int CHECK = 1 << 10;
+    /** Target factor digits, B1 and expected curves (B2 = 100·B1), after GMP-ECM's table. */
+    private static final int[][] SCHEDULE = {
+            {15, 2_000, 25}, {20, 11_000, 90}, {25, 50_000, 300},
+            {30, 250_000, 700}, {35, 1_000_000, 1_800}, {40, 3_000_000, 5_100}};
+
+    private Ecm() {}
+
+    /**
+     * Races {@code curves} curves with bounds (B1, B2) over {@code threads} threads. The future
+     * completes with the first proper factor, with 1 once every curve has failed, with null once
+     * {@code stop} reports true, or exceptionally when the optional timeout fires; cancelling it
+     * stops the workers.
+     */
+    static CompletableFuture<BigInteger> async(BigInteger n, int b1, long b2, int curves, int threads, Duration timeout,
+                                               BooleanSupplier stop) {
+        if (threads < 1) throw new IllegalArgumentException("threads must be >= 1");
+        if (b1 < 2 || curves < 1) throw new IllegalArgumentException("B1 must be >= 2 and curves >= 1");
+        CompletableFuture<BigInteger> result = new CompletableFuture<>();
+        if (!n.testBit(0)) {
+            result.complete(BigInteger.TWO);
+            return result;
+        }
+        if (timeout != null) result.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        AtomicInteger left = new AtomicInteger(curves), running = new AtomicInteger(threads);
+        for (int i = 0; i < threads; i++) {
+            Thread t = new Thread(() -> {
+                try {
+                    BooleanSupplier done = () -> result.isDone() || stop.getAsBoolean();
+                    while (!result.isDone() && left.getAndDecrement() > 0) {
+                        if (stop.getAsBoolean()) result.complete(null);
+                        BigInteger d = curve(n, 6 + RNG.nextInt(Integer.MAX_VALUE - 6), b1, b2, done);
+                        if (d != null && !d.equals(BigInteger.ONE)) result.complete(d);
+                    }
+                    if (running.decrementAndGet() == 0) result.complete(BigInteger.ONE);
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            }, "primely-ecm-" + i);
+            t.setDaemon(true);
+            t.start();
+        }
+        return result;
+    }
+
+    /**
+     * Runs the schedule levels up to {@code digits} in turn: a proper factor of n, 1 when all of
+     * them failed, or null once {@code stop} reports true. Throws
+     * {@link java.util.concurrent.CompletionException} on timeout.
+     */
+    static BigInteger bySchedule(BigInteger n, int digits, int threads, Duration timeout, BooleanSupplier stop) {
+        long deadline = timeout == null ? Long.MAX_VALUE : System.nanoTime() + timeout.toNanos();
+        for (int[] level : SCHEDULE) {
+            if (level[0] > Math.max(digits, SCHEDULE[0][0])) break;
+            Duration left = timeout == null ? null : Duration.ofNanos(Math.max(1, deadline - System.nanoTime()));
+            BigInteger d = async(n, level[1], 100L * level[1], level[2], threads, left, stop).join();
+            if (d == null || !d.equals(BigInteger.ONE)) return d;
+        }
+        return BigInteger.ONE;
+    }
+
+    /**
+     * One curve σ over odd n: a proper factor, 1 if the curve found none, or null once
+     * {@code stop} reports true.
+     */
+    static BigInteger curve(BigInteger n, long sigma, int b1, long b2, BooleanSupplier stop) {
+        BigInteger s = BigInteger.valueOf(sigma);
+        BigInteger u = s.multiply(s).subtract(BigInteger.valueOf(5)).mod(n), v = s.shiftLeft(2).mod(n);
+        BigInteger u3 = u.modPow(BigInteger.valueOf(3), n), vmu = v.subtract(u);
+        BigInteger num = vmu.pow(3).multiply(u.multiply(BigInteger.valueOf(3)).add(v)).mod(n);
+        BigInteger den = u3.multiply(v).shiftLeft(4).mod(n);
+        BigInteger g = den.gcd(n);
+        if (!g.equals(BigInteger.ONE)) return g.equals(n) ? BigInteger.ONE : g;      // a lucky factor, or a degenerate σ
+        Curve c = new Curve(n, num.multiply(den.modInverse(n)));                     // A24 = (A + 2) / 4
+        long[] x = c.mc.toMont(u3), z = c.mc.toMont(v.modPow(BigInteger.valueOf(3), n));
+
+        int[] primes = PrimeTable.table(b1);
+        int np = PrimeTable.count(primes, b1);
+        for (int i = 0; i < np; i++) {
+            if ((i & 255) == 0 && stop.getAsBoolean()) return null;
+            long p = primes[i], pe = p;
+            while (pe <= b1 / p) pe *= p;
+            c.ladder(x, z, pe, x, z);
+        }
+        g = c.mc.raw(z).gcd(n);
+        if (!g.equals(BigInteger.ONE)) return g.equals(n) ? BigInteger.ONE : g;
+        return b2 > b1 ? c.stage2(x, z, b1, b2, stop) : BigInteger.ONE;
+    }
+
+    /** Arithmetic on one curve; holds scratch buffers, so one per thread. */
+    private static final class Curve {
+        final MontgomeryContext mc;
+        final BigInteger n;
+        final long[] a24;
+        private final long[] t1, t2, t3, t4, ox, oz;
+        private final long[] rx, rz, sx, sz;        // ladder registers
+
+        Curve(BigInteger n, BigInteger a24) {
+            this.n = n;
+            this.mc = new MontgomeryContext(n);
+            this.a24 = mc.toMont(a24);
+            t1 = mc.alloc(); t2 = mc.alloc(); t3 = mc.alloc(); t4 = mc.alloc();
+            ox = mc.alloc(); oz = mc.alloc();
+            rx = mc.alloc(); rz = mc.alloc(); sx = mc.alloc(); sz = mc.alloc();
+        }
+
+        /** (X : Z) ← 2·(x : z). */
+        void dbl(long[] x, long[] z, long[] outX, long[] outZ) {
+            mc.add(x, z, t1);
+            mc.sqr(t1, t1);                 // (x + z)²
+            mc.sub(x, z, t2);
+            mc.sqr(t2, t2);                 // (x − z)²
+            mc.sub(t1, t2, t3);             // 4xz
+            mc.mul(t1, t2, outX);
+            mc.mul(a24, t3, t4);
+            mc.add(t4, t2, t4);
+            mc.mul(t3, t4, outZ);
+        }
+
+        /** P + Q from P, Q and P − Q = (xd : zd); outputs may alias any input. */
+        void add(long[] xp, long[] zp, long[] xq, long[] zq, long[] xd, long[] zd, long[] outX, long[] outZ) {
+            mc.sub(xp, zp, t1);
+            mc.add(xq, zq, t2);
+            mc.mul(t1, t2, t1);             // (xp − zp)(xq + zq)
+            mc.add(xp, zp, t3);
+            mc.sub(xq, zq, t4);
+            mc.mul(t3, t4, t3);             // (xp + zp)(xq − zq)
+            mc.add(t1, t3, t2);
+            mc.sqr(t2, t2);
+            mc.sub(t1, t3, t4);
+            mc.sqr(t4, t4);
+            mc.mul(zd, t2, ox);
+            mc.mul(xd, t4, oz);
+            mc.copy(ox, outX);
+            mc.copy(oz, outZ);
+        }
+
+        /** (X : Z) ← k·(x : z) for k ≥ 1 by the Montgomery ladder; outputs may alias inputs. */
+        void ladder(long[] x, long[] z, long k, long[] outX, long[] outZ) {
+            long[] px = mc.alloc(), pz = mc.alloc();
+            mc.copy(x, px);
+            mc.copy(z, pz);
+            mc.copy(x, rx);
+            mc.copy(z, rz);
+            dbl(px, pz, sx, sz);
+            for (int i = 62 - Long.numberOfLeadingZeros(k); i >= 0; i--) {
+                if ((k >>> i & 1) != 0) {
+                    add(sx, sz, rx, rz, px, pz, rx, rz);
+                    dbl(sx, sz, sx, sz);
+                } else {
+                    add(rx, rz, sx, sz, px, pz, sx, sz);
+                    dbl(rx, rz, rx, rz);
+                }
+            }
+            mc.copy(rx, outX);
+            mc.copy(rz, outZ);
+        }
+
+        /** Stage 2 from the stage-1 point Q = (x : z). */
+        BigInteger stage2(long[] x, long[] z, int b1, long b2, BooleanSupplier stop) {
+            int d = b1 >= 1155 ? 2310 : b1 >= 105 ? 210 : 30;
+            int half = d / 2;
+            // baby steps: jQ for odd j ≤ D/2, by (j + 2)Q = jQ + 2Q with difference (j − 2)Q
+            long[][] bx = new long[half + 1][], bz = new long[half + 1][];
+            long[] x2 = mc.alloc(), z2 = mc.alloc();
+            dbl(x, z, x2, z2);
+            bx[1] = x.clone();
+            bz[1] = z.clone();
+            if (half >= 3) {
+                bx[3] = mc.alloc();
+                bz[3] = mc.alloc();
+                add(x2, z2, x, z, x, z, bx[3], bz[3]);
+            }
+            for (int j = 5; j <= half; j += 2) {
+                bx[j] = mc.alloc();
+                bz[j] = mc.alloc();
+                add(bx[j - 2], bz[j - 2], x2, z2, bx[j - 4], bz[j - 4], bx[j], bz[j]);
+            }
+
+            long[] gx = mc.alloc(), gz = mc.alloc();         // S = D·Q
+            ladder(x, z, d, gx, gz);
+            // primes above D/2 keep every giant index m ≥ 1; for B1 < 15 the few below are skipped
+            PrimitiveIterator.OfLong it = Sieve.primesBetween(Math.max(b1, half) + 1L, b2 + 1).iterator();
+            if (!it.hasNext()) return BigInteger.ONE;
+            long q = it.nextLong();
+            long m = (q + half) / d;
+            long[] mx = mc.alloc(), mz = mc.alloc(), px = mc.alloc(), pz = mc.alloc();
+            ladder(x, z, m * d, mx, mz);
+            boolean prevIsO = m == 1;                       // R_{m−1} is the point at infinity
+            if (!prevIsO) ladder(x, z, (m - 1) * d, px, pz);
+
+            long[] prod = mc.alloc(), a = mc.alloc(), b = mc.alloc();
+            mc.setOne(prod);
+            for (int k = 1; ; k++) {
+                long mq = (q + half) / d;
+                while (m < mq) {                            // R_{m+1} = R_m + S, difference R_{m−1}
+                    if (prevIsO) {
+                        mc.copy(mx, px);
+                        mc.copy(mz, pz);
+                        dbl(mx, mz, mx, mz);
+                        prevIsO = false;
+                    } else {
+                        add(mx, mz, gx, gz, px, pz, px, pz);
+                        long[] tx = mx, tz = mz;
+                        mx = px; mz = pz;
+                        px = tx; pz = tz;
+                    }
+                    m++;
+                }
+                int j = (int) Math.abs(q - m * d);
+                mc.mul(mx, bz[j], a);
+                mc.mul(bx[j], mz, b);
+                mc.sub(a, b, a);
+                mc.mul(prod, a, prod);
+                if ((k & (CHECK - 1)) == 0 || !it.hasNext()) {
+                    if (stop.getAsBoolean()) return null;
+                    BigInteger g = mc.raw(prod).gcd(n);
+                    if (!g.equals(BigInteger.ONE)) return g.equals(n) ? BigInteger.ONE : g;
+                    if (!it.hasNext()) return BigInteger.ONE;
+                }
+                q = it.nextLong();
+            }
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.rlnkoo.primely;
+
+import java.util.Arrays;
+
+/**
+ * Allocation-light factorization of positive {@code long}s, behind {@link Factorizer#factor(long)}.
+ *
+ * Twos are shifted out, then odd primes below {@value #TRIAL} are divided out with the
+ * multiply-by-inverse exactness test. A cofactor left after that is checked with
+ * {@link Primes#isPrimeDet64}, taken apart if it is a perfect power, and otherwise split:
+ * below 2⁴⁰ by SQUFOF, above by Brent's rho in {@link Montgomery64} form with the gcd batched
+ * over {@value #RHO_BATCH} steps. Each splitter falls back on the other.
+ */
+final class Factor64 {
+    private static final int TRIAL = 1 << 10;
+    private static final int RHO_BATCH = 128;
+    private static final long SQUFOF_LIMIT = 1L << 40;
+    private static final long[] MULTIPLIERS = {
+            1, 3, 5, 7, 11, 3 * 5, 3 * 7, 3 * 11, 5 * 7, 5 * 11, 7 * 11,
+            3 * 5 * 7, 3 * 5 * 11, 3 * 7 * 11, 5 * 7 * 11, 3 * 5 * 7 * 11};
+
+    /** Odd primes below TRIAL with p⁻¹ mod 2⁶⁴ and ⌊(2⁶⁴ − 1) / p⌋. */
+    private static final long[] TP, TINV, TMAX;
+
+    static {
+        int[] ps = PrimeTable.primesUpTo(TRIAL);
+        TP = new long[ps.length - 1];
+        TINV = new long[TP.length];
+        TMAX = new long[TP.length];
+        for (int i = 0; i < TP.length; i++) {
+            long p = ps[i + 1];
+            TP[i] = p;
+            TINV[i] = Montgomery64.inverse(p);
+            TMAX[i] = Long.divideUnsigned(-1L, p);
+        }
+    }
+
+    private Factor64() {}
+
+    /** Collects prime factors with multiplicity; compacted and sorted by {@link #result}. */
+    private static final class Acc {
+        long[] primes = new long[16];
+        int[] exps = new int[16];
+        int n;
+
+        void add(long p, int e) {
+            if (n == primes.length) {
+                primes = Arrays.copyOf(primes, 2 * n);
+                exps = Arrays.copyOf(exps, 2 * n);
+            }
+            primes[n] = p;
+            exps[n++] = e;
+        }
+
+        LongFactorization result() {
+            for (int i = 1; i < n; i++) {           // insertion sort: a handful of entries
+                long p = primes[i];
+                int e = exps[i], j = i - 1;
+                for (; j >= 0 && primes[j] > p; j--) {
+                    primes[j + 1] = primes[j];
+                    exps[j + 1] = exps[j];
+                }
+                primes[j + 1] = p;
+                exps[j + 1] = e;
+            }
+            int k = 0;
+            for (int i = 0; i < n; i++) {
+                if (k > 0 && primes[k - 1] == primes[i]) exps[k - 1] += exps[i];
+                else { primes[k] = primes[i]; exps[k++] = exps[i]; }
+            }
+            return new LongFactorization(Arrays.copyOf(primes, k), Arrays.copyOf(exps, k));
+        }
+    }
+
+    static LongFactorization factor(long n) {
+        if (n < 1) throw new IllegalArgumentException("n must be >= 1");
+        Acc acc = new Acc();
+        int tz = Long.numberOfTrailingZeros(n);
+        if (tz > 0) {
+            acc.add(2, tz);
+            n >>>= tz;
+        }
+        for (int i = 0; i < TP.length && n > 1; i++) {
+            long p = TP[i];
+            if (p * p > n) {
+                acc.add(n, 1);
+                n = 1;
+                break;
+            }
+            long q = n * TINV[i];
+            if (Long.compareUnsigned(q, TMAX[i]) > 0) continue;
+            int e = 0;
+            do {
+                n = q;
+                e++;
+                q = n * TINV[i];
+            } while (Long.compareUnsigned(q, TMAX[i]) <= 0);
+            acc.add(p, e);
+        }
+        if (n > 1) split(n, 1, acc);
+        return acc.result();
+    }
+
+    /** Adds m^e, for odd m with no prime factor below TRIAL. */
+    private static void split(long m, int e, Acc acc) {
+        if (Primes.isPrimeDet64(m)) {
+            acc.add(m, e);
+            return;
+        }
+        // m ≥ TRIAL², and m < 2^63, so m is at most a 6th power
+        for (int k = 2; k <= 6; k++) {
+            long r = root(m, k);
+            if (pow(r, k) == m) {
+                split(r, e * k, acc);
+                return;
+            }
+        }
+        long d = m < SQUFOF_LIMIT ? squfof(m) : 0;
+        if (d <= 1 || d >= m) d = rho(m);
+        if (d <= 1 || d >= m) d = squfof(m);
+        if (d <= 1 || d >= m) throw new IllegalStateException("no factor found for " + m);
+        split(d, e, acc);
+        split(m / d, e, acc);
+    }
+
+    /** ⌊m^(1/k)⌋. */
+    static long root(long m, int k) {
+        if (k == 2) return BucketSieve.isqrt(m);
+        long r = (long) Math.pow(m, 1.0 / k);
+        while (r > 0 && pow(r, k) > m) r--;
+        while (pow(r + 1, k) <= m) r++;
+        return r;
+    }
+
+    /** r^k, saturating at Long.MAX_VALUE. */
+    private static long pow(long r, int k) {
+        long x = 1;
+        for (int i = 0; i < k; i++) {
+            if (x > Long.MAX_VALUE / r) return Long.MAX_VALUE;
+            x *= r;
+        }
+        return x;
+    }
+
+    /**
+     * A factor of odd composite m by Brent's rho on y² + c in Montgomery form, trying c = 1, 2, …
+     * until a step batch does not collapse to m.
+     */
+    static long rho(long m) {
+        long nInv = Montgomery64.inverse(m), one = Montgomery64.one(m), r2 = Montgomery64.r2(m);
+        for (long c0 = 1; c0 < 64; c0++) {
+            long c = Montgomery64.toMont(c0, r2, m, nInv);
+            long y = one - (m - one);               // 2
+            if (y < 0) y += m;
+            long x = y, ys = y, q = one, g = 1;
+            for (long r = 1; g == 1; r <<= 1) {
+                x = y;
+                for (long i = 0; i < r; i++) y = f(y, c, m, nInv);
+                for (long k = 0; k < r && g == 1; k += RHO_BATCH) {
+                    ys = y;
+                    long upper = Math.min(RHO_BATCH, r - k);
+                    for (long i = 0; i < upper; i++) {
+                        y = f(y, c, m, nInv);
+                        q = Montgomery64.mul(q, x > y ? x - y : y - x, m, nInv);
+                    }
+                    g = gcd(q, m);
+                }
+            }
+            if (g == m) {
+                do {
+                    ys = f(ys, c, m, nInv);
+                    g = gcd(x > ys ? x - ys : ys - x, m);
+                } while (g == 1);
+            }
+            if (g != m) return g;
+        }
+        return m;
+    }
+
+    /** y² + c mod m, in Montgomery form. */
+    private static long f(long y, long c, long m, long nInv) {
+        long s = Montgomery64.mul(y, y, m, nInv) - (m - c);
+        return s < 0 ? s + m : s;
+    }
+
+    /** Binary gcd of a ≥ 0 and odd b > 0. */
+    static long gcd(long a, long b) {
+        if (a == 0) return b;
+        a >>>= Long.numberOfTrailingZeros(a);
+        while (a != b) {
+            if (a > b) { a -= b; a >>>= Long.numberOfTrailingZeros(a); }
+            else { b -= a; b >>>= Long.numberOfTrailingZeros(b); }
+        }
+        return a;
+    }
+
+    /**
+     * Shanks' square forms factorization of odd composite m, racing the usual squarefree
+     * multipliers; 0 if none of them yields a proper factor.
+     */
+    static long squfof(long m) {
+        long s = BucketSieve.isqrt(m);
+        if (s * s == m) return s;
+        for (long k : MULTIPLIERS) {
+            if (m > (Long.MAX_VALUE >>> 1) / k) break;
+            long d = k * m;
+            long p0 = BucketSieve.isqrt(d), p = p0, pPrev = p0, qPrev = 1, q = d - p0 * p0;
+            if (q == 0) continue;
+            long bound = 6 * (long) Math.sqrt(2.0 * Math.sqrt(d));
+            long r = 0;
+            int i = 2;
+            for (; i < bound; i++) {
+                long b = (p0 + p) / q;
+                p = b * q - p;
+                long t = q;
+                q = qPrev + b * (pPrev - p);
+                r = (long) Math.sqrt((double) q);
+                if ((i & 1) == 0 && r * r == q) break;
+                qPrev = t;
+                pPrev = p;
+            }
+            if (i >= bound || r == 0) continue;
+            long b = (p0 - p) / r;
+            pPrev = p = b * r + p;
+            qPrev = r;
+            q = (d - pPrev * pPrev) / qPrev;
+            if (q == 0) continue;
+            for (int guard = 0; guard < bound; guard++) {
+                b = (p0 + p) / q;
+                pPrev = p;
+                p = b * q - p;
+                long t = q;
+                q = qPrev + b * (pPrev - p);
+                qPrev = t;
+                if (p == pPrev) break;
+            }
+            if (qPrev <= 0) continue;
+            long g = gcd(qPrev % m, m);
+            if (g != 1 && g != m) return g;
+        }
+        return 0;
+    }
+}
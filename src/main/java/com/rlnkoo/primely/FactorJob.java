@@ -0,0 +1,187 @@
+package com.rlnkoo.primely;
+
+import com.rlnkoo.primely.Factorization.Status;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * One factorization under {@link FactorOptions}: trial division, then per composite a bounded
+ * rho race, p−1, ECM, SIQS for those it is tuned for and a final rho race until a split, a stop
+ * or, without a deadline, {@value #FINAL_RHO_BUDGETS} rho budgets. Composites that every enabled
+ * method gives up on stay {@link Status#COMPOSITE}.
+ *
+ * Every piece is in exactly one place at all times (a recorded factor or the pending stack), so
+ * {@link #snapshot()} can be taken from another thread, e.g. when a deadline fires, and still
+ * multiplies back to n.
+ */
+final class FactorJob {
+    /**
+     * Composites between this size and {@link #SIQS_MAX_BITS} go to SIQS after an ECM pass for
+     * factors up to a third of their digits (at least 15, at most the configured depth).
+     */
+    static final int SIQS_BITS = 100;
+    /** The largest size Siqs is tuned for; bigger composites get the full ECM depth and no sieve. */
+    static final int SIQS_MAX_BITS = 300;
+    /** Without a deadline, the final rho race gets this many times {@link FactorOptions#rhoBudget()}. */
+    static final int FINAL_RHO_BUDGETS = 120;
+
+    private static final double LOG10_2 = Math.log10(2);
+
+    private record Piece(BigInteger m, String by, Status status) {}
+    private record Split(BigInteger d, String by) {}
+
+    private final BigInteger n;
+    private final FactorOptions opt;
+    private final Map<BigInteger,Integer> factors = new TreeMap<>();
+    private final Map<BigInteger,Status> status = new TreeMap<>();
+    private final Map<BigInteger,String> foundBy = new TreeMap<>();
+    private final Set<String> methods = new LinkedHashSet<>();
+    private final Deque<Piece> pending = new ArrayDeque<>();
+
+    FactorJob(BigInteger n, FactorOptions opt) {
+        this.n = n;
+        this.opt = opt;
+        if (n.signum() < 0) factors.put(BigInteger.valueOf(-1), 1);
+        if (n.abs().compareTo(BigInteger.TWO) >= 0) pending.push(new Piece(n.abs(), "input", Status.UNKNOWN));
+    }
+
+    /** Runs until every piece is classified or {@code stop} reports true; returns the snapshot. */
+    Factorization run(BooleanSupplier stop) {
+        BigInteger m = n.abs();
+        if (m.signum() == 0) {
+            synchronized (this) { factors.put(BigInteger.ZERO, 1); methods.add("zero"); }
+            return snapshot();
+        }
+        if (m.bitLength() < 64) {
+            synchronized (this) { pending.clear(); native64(m.longValue()); }
+            return snapshot();
+        }
+
+        Map<BigInteger,Integer> small = new TreeMap<>();
+        for (int p : TrialDivision.smallFactors(m, 10_000)) {
+            BigInteger P = BigInteger.valueOf(p);
+            do { small.merge(P, 1, Integer::sum); m = m.divide(P); } while (m.mod(P).equals(BigInteger.ZERO));
+        }
+        synchronized (this) {
+            methods.add("trial");
+            pending.pop();
+            small.forEach((p, e) -> record(p, e, Status.PROVEN_PRIME, "trial"));
+            if (!m.equals(BigInteger.ONE)) classify(m, small.isEmpty() ? "input" : "trial");
+        }
+
+        for (Piece pc; !stop.getAsBoolean() && (pc = next()) != null; ) {
+            Split s = split(pc.m(), stop);
+            if (s == null && stop.getAsBoolean()) break;
+            synchronized (this) {
+                pending.pop();
+                if (s == null) {
+                    record(pc.m(), 1, Status.COMPOSITE, pc.by());
+                } else {
+                    classify(s.d(), s.by());
+                    classify(pc.m().divide(s.d()), s.by());
+                }
+            }
+        }
+        return snapshot();
+    }
+
+    /** What is known right now; pieces still pending count as unfactored. */
+    synchronized Factorization snapshot() {
+        Map<BigInteger,Integer> f = new TreeMap<>(factors);
+        Map<BigInteger,Status> st = new TreeMap<>(status);
+        Map<BigInteger,String> by = new TreeMap<>(foundBy);
+        for (Piece p : pending) {
+            f.merge(p.m(), 1, Integer::sum);
+            st.put(p.m(), p.status());
+            by.putIfAbsent(p.m(), p.by());
+        }
+        boolean complete = st.values().stream().noneMatch(s -> s == Status.COMPOSITE || s == Status.UNKNOWN);
+        return new Factorization(Collections.unmodifiableMap(f), complete, String.join("+", methods),
+                Collections.unmodifiableMap(st), Collections.unmodifiableMap(by));
+    }
+
+    private synchronized Piece next() {
+        return pending.peek();
+    }
+
+    /** Records m as a prime, factors it natively below 2⁶³, or pushes it as a pending composite. */
+    private void classify(BigInteger m, String by) {
+        Status s = Factorization.statusOf(m);
+        if (s != Status.COMPOSITE) record(m, 1, s, by);
+        else if (m.bitLength() < 64) native64(m.longValue());
+        else pending.push(new Piece(m, by, Status.COMPOSITE));
+    }
+
+    private void native64(long m) {
+        methods.add("native64");
+        LongFactorization lf = Factor64.factor(m);
+        for (int i = 0; i < lf.primes().length; i++) {
+            record(BigInteger.valueOf(lf.primes()[i]), lf.exponents()[i], Status.PROVEN_PRIME, "native64");
+        }
+    }
+
+    private void record(BigInteger p, int e, Status s, String by) {
+        factors.merge(p, e, Integer::sum);
+        status.put(p, s);
+        foundBy.putIfAbsent(p, by);
+    }
+
+    private synchronized void ran(String method) {
+        methods.add(method);
+    }
+
+    /** A proper factor of composite m and the method that found it; null if all gave up or stopped. */
+    private Split split(BigInteger m, BooleanSupplier stop) {
+        int bits = m.bitLength();
+        boolean sieve = opt.siqs() && bits > SIQS_BITS && bits <= SIQS_MAX_BITS;
+        int ecmDigits = sieve ? Math.min(opt.ecmDigits(), Math.max(15, (int) (bits * LOG10_2) / 3)) : opt.ecmDigits();
+        BigInteger d;
+        if (!opt.rhoBudget().isZero() && !stop.getAsBoolean()) {
+            ran("rho");
+            d = join(ParallelRho.async(m, opt.threads(), Factorizer.RHO_BATCH, opt.rhoBudget(), stop));
+            if (proper(d, m)) return new Split(d, "rho");
+        }
+        if (opt.pMinus1B1() >= 2 && !stop.getAsBoolean()) {
+            ran("p-1");
+            d = PMinus1.factor(m, opt.pMinus1B1(), opt.pMinus1B2(), stop);
+            if (proper(d, m)) return new Split(d, "p-1");
+        }
+        if (opt.ecmDigits() > 0 && !stop.getAsBoolean()) {
+            ran("ecm");
+            d = Ecm.bySchedule(m, ecmDigits, opt.threads(), null, stop);
+            if (proper(d, m)) return new Split(d, "ecm");
+        }
+        if (sieve && !stop.getAsBoolean()) {
+            ran("siqs");
+            d = Siqs.factor(m, opt.threads(), stop);
+            if (proper(d, m)) return new Split(d, "siqs");
+        }
+        if (!opt.rhoBudget().isZero() && !stop.getAsBoolean()) {
+            ran("rho");
+            Duration budget = opt.timeout() == null ? opt.rhoBudget().multipliedBy(FINAL_RHO_BUDGETS) : null;
+            d = join(ParallelRho.async(m, opt.threads(), Factorizer.RHO_BATCH, budget, stop));
+            if (proper(d, m)) return new Split(d, "rho");
+        }
+        return null;
+    }
+
+    private static boolean proper(BigInteger d, BigInteger m) {
+        return d != null && d.compareTo(BigInteger.ONE) > 0 && d.compareTo(m) < 0;
+    }
+
+    /** The race's result, or null when its budget ran out. */
+    private static BigInteger join(CompletableFuture<BigInteger> race) {
+        try {
+            return race.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) return null;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.rlnkoo.primely;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+/**
+ * Limits for {@link Factorizer#factorAsync}: an overall deadline, the effort given to each
+ * method and where the driver runs.
+ *
+ * @param timeout   deadline for the whole factorization, or null for none; when it passes the
+ *                  future completes with what has been found so far
+ * @param rhoBudget time the first, bounded rho race gets per composite; zero skips rho altogether,
+ *                  including the final race that otherwise runs until a split, the deadline or,
+ *                  without one, 120 times this budget
+ * @param pMinus1B1 stage-1 bound of Pollard p−1; 0 skips p−1
+ * @param pMinus1B2 stage-2 bound of Pollard p−1 (≤ B1 for stage 1 only)
+ * @param ecmDigits factor size ECM hunts for, in decimal digits; 0 skips ECM
+ * @param siqs      whether composites of 100–300 bits go to the quadratic sieve
+ * @param threads   rho walks, ECM curves and sieving threads per composite
+ * @param executor  runs the driver, or null for a fresh daemon thread; the methods above keep
+ *                  their own worker threads
+ */
+public record FactorOptions(Duration timeout, Duration rhoBudget, int pMinus1B1, long pMinus1B2,
+                            int ecmDigits, boolean siqs, int threads, Executor executor) {
+
+    /** The effort {@link Factorizer#factor(BigInteger)} spends, without a deadline. */
+    public static final FactorOptions DEFAULT = new FactorOptions(null, Duration.ofMillis(250), 50_000, 5_000_000,
+            20, true, Runtime.getRuntime().availableProcessors(), null);
+
+    public FactorOptions {
+        if (timeout != null && timeout.isNegative()) throw new IllegalArgumentException("timeout must not be negative");
+        if (rhoBudget == null || rhoBudget.isNegative()) throw new IllegalArgumentException("rhoBudget must be >= 0");
+        if (pMinus1B1 < 0 || ecmDigits < 0) throw new IllegalArgumentException("bounds must be >= 0");
+        if (threads < 1) throw new IllegalArgumentException("threads must be >= 1");
+    }
+
+    public FactorOptions withTimeout(Duration timeout) {
+        return new FactorOptions(timeout, rhoBudget, pMinus1B1, pMinus1B2, ecmDigits, siqs, threads, executor);
+    }
+
+    public FactorOptions withRhoBudget(Duration rhoBudget) {
+        return new FactorOptions(timeout, rhoBudget, pMinus1B1, pMinus1B2, ecmDigits, siqs, threads, executor);
+    }
+
+    public FactorOptions withPMinus1(int B1, long B2) {
+        return new FactorOptions(timeout, rhoBudget, B1, B2, ecmDigits, siqs, threads, executor);
+    }
+
+    public FactorOptions withEcmDigits(int ecmDigits) {
+        return new FactorOptions(timeout, rhoBudget, pMinus1B1, pMinus1B2, ecmDigits, siqs, threads, executor);
+    }
+
+    public FactorOptions withSiqs(boolean siqs) {
+        return new FactorOptions(timeout, rhoBudget, pMinus1B1, pMinus1B2, ecmDigits, siqs, threads, executor);
+    }
+
+    public FactorOptions withThreads(int threads) {
+        return new FactorOptions(timeout, rhoBudget, pMinus1B1, pMinus1B2, ecmDigits, siqs, threads, executor);
+    }
+
+    public FactorOptions withExecutor(Executor executor) {
+        return new FactorOptions(timeout, rhoBudget, pMinus1B1, pMinus1B2, ecmDigits, siqs, threads, executor);
+    }
+}
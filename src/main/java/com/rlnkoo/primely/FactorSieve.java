@@ -0,0 +1,258 @@
+package com.rlnkoo.primely;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+
+/**
+ * Segmented factor sieve: the complete factorization of every integer in a range.
+ *
+ * A segment keeps one cofactor per number, starting at the number itself. Each prime p up to
+ * √to walks its multiples in the segment, divides p out of their cofactors and appends (p, e)
+ * to the number's factor list; all lists share one pool of primitive arrays. Whatever cofactor
+ * is left above 1 is a single prime. Dividing out p is a multiplication by its inverse mod 2⁶⁴
+ * and each prime carries its next multiple from segment to segment, so the work is a few
+ * multiplications per prime factor and a range costs close to linear time instead of one
+ * trial-division run per number.
+ *
+ * Results go to a callback through a reused {@link Factors} view, one segment at a time; in
+ * parallel mode chunks of segments are factored on the common pool. The base primes come from
+ * {@link PrimeTable}, so every number in the range must stay below 4·10¹⁸.
+ */
+public final class FactorSieve {
+    private static final int SEG_LEN = 1 << 15;
+    private static final int SEGMENTS_PER_CHUNK = 32;
+    private static final long MAX_TO = 4_000_000_000_000_000_000L;
+
+    private FactorSieve() {}
+
+    /**
+     * The factorization of one number, valid only during the callback that receives it: the same
+     * instance is refilled for the next number.
+     */
+    public static final class Factors {
+        private long n;
+        private int count;
+        private final long[] primes = new long[16];
+        private final int[] exps = new int[16];
+
+        private Factors() {}
+
+        /** The number factored. */
+        public long n() { return n; }
+
+        /** Number of distinct prime factors. */
+        public int count() { return count; }
+
+        /** The i-th smallest distinct prime factor. */
+        public long prime(int i) {
+            if (i >= count) throw new IndexOutOfBoundsException(i);
+            return primes[i];
+        }
+
+        /** Exponent of {@link #prime}(i). */
+        public int exponent(int i) {
+            if (i >= count) throw new IndexOutOfBoundsException(i);
+            return exps[i];
+        }
+
+        /** Whether n is prime. */
+        public boolean isPrime() {
+            return count == 1 && exps[0] == 1;
+        }
+
+        /** Euler's φ(n) = Π p^(e−1)·(p − 1). */
+        public long totient() {
+            long t = 1;
+            for (int i = 0; i < count; i++) {
+                t *= primes[i] - 1;
+                for (int e = 1; e < exps[i]; e++) t *= primes[i];
+            }
+            return t;
+        }
+
+        /** Möbius μ(n): 0 if a square divides n, otherwise (−1)^count. */
+        public int moebius() {
+            for (int i = 0; i < count; i++) if (exps[i] > 1) return 0;
+            return (count & 1) == 0 ? 1 : -1;
+        }
+
+        /** A detached copy in the shape {@link Factorizer#factor} returns. */
+        public Factorization toFactorization() {
+            Map<BigInteger, Integer> map = new TreeMap<>();
+            for (int i = 0; i < count; i++) map.put(BigInteger.valueOf(primes[i]), exps[i]);
+            return new Factorization(map, true, "sieve");
+        }
+
+        @Override public String toString() {
+            StringBuilder sb = new StringBuilder().append(n).append(" =");
+            if (count == 0) sb.append(" 1");
+            for (int i = 0; i < count; i++) {
+                sb.append(i == 0 ? " " : " · ").append(primes[i]);
+                if (exps[i] > 1) sb.append('^').append(exps[i]);
+            }
+            return sb.toString();
+        }
+
+        private void add(long p, int e) {
+            primes[count] = p;
+            exps[count++] = e;
+        }
+    }
+
+    /** Calls {@code action} with the factorization of every n in [from, to), ascending. */
+    public static void forEach(long from, long to, Consumer<? super Factors> action) {
+        forEach(from, to, false, action);
+    }
+
+    /**
+     * Factors every n in [from, to); 1 has no factors and ranges start at 1 at the lowest.
+     * @param parallel factor chunks of the range on the common pool; {@code action} must then be
+     *                 thread-safe and sees numbers ascending only within a chunk
+     * @throws IllegalArgumentException if {@code to} exceeds 4·10¹⁸
+     */
+    public static void forEach(long from, long to, boolean parallel, Consumer<? super Factors> action) {
+        if (from < 1) from = 1;
+        if (to <= from) return;
+        if (to > MAX_TO) throw new IllegalArgumentException("factor sieve needs to <= 4e18");
+        int[] base = PrimeTable.table((int) BucketSieve.isqrt(to - 1));
+        if (!parallel) {
+            new Segments(base, from, to).run(action);
+            return;
+        }
+        long lo0 = from, t = to;
+        long chunkLen = Math.max((long) SEG_LEN * SEGMENTS_PER_CHUNK, (8 * BucketSieve.isqrt(to - 1) + SEG_LEN - 1) / SEG_LEN * SEG_LEN);
+        LongStream.range(0, (to - from + chunkLen - 1) / chunkLen).parallel().forEach(i -> {
+            long lo = lo0 + i * chunkLen;
+            new Segments(base, lo, Math.min(t, lo + chunkLen)).run(action);
+        });
+    }
+
+    /** φ(n) for every n in [from, to), indexed by n − from; computed in parallel. */
+    public static long[] totients(long from, long to) {
+        long[] out = new long[length(from, to)];
+        forEach(from, to, true, f -> out[(int) (f.n() - from)] = f.totient());
+        return out;
+    }
+
+    /** μ(n) for every n in [from, to), indexed by n − from; computed in parallel. */
+    public static byte[] moebius(long from, long to) {
+        byte[] out = new byte[length(from, to)];
+        forEach(from, to, true, f -> out[(int) (f.n() - from)] = (byte) f.moebius());
+        return out;
+    }
+
+    private static int length(long from, long to) {
+        if (from < 1) throw new IllegalArgumentException("from must be >= 1");
+        if (to - from > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("range too long for an array");
+        return (int) Math.max(0, to - from);
+    }
+
+    /**
+     * One chunk [from, to), factored a segment at a time; the segment arrays and the factor pool
+     * are reused. Per base prime it keeps p⁻¹ mod 2⁶⁴, ⌊(2⁶⁴ − 1) / p⌋ and the next multiple, so
+     * moving to the next segment costs no division.
+     */
+    private static final class Segments {
+        private final int[] base;
+        private final long from, to;
+        private final long[] inv, max, next;
+        private final long[] rest = new long[SEG_LEN];
+        private final int[] head = new int[SEG_LEN], tail = new int[SEG_LEN];
+        private long[] poolPrime = new long[4 * SEG_LEN];
+        private int[] poolExp = new int[4 * SEG_LEN], poolNext = new int[4 * SEG_LEN];
+        private int used;
+        private final Factors view = new Factors();
+
+        Segments(int[] base, long from, long to) {
+            this.base = base;
+            this.from = from;
+            this.to = to;
+            int np = PrimeTable.count(base, (int) BucketSieve.isqrt(to - 1));
+            this.inv = new long[np];
+            this.max = new long[np];
+            this.next = new long[np];
+            for (int k = 0; k < np; k++) {
+                long p = base[k], x = p;
+                for (int i = 0; i < 5; i++) x *= 2 - p * x;     // Newton: correct bits double each step
+                inv[k] = x;
+                max[k] = Long.divideUnsigned(-1L, p);
+                next[k] = (from + p - 1) / p * p;
+            }
+        }
+
+        void run(Consumer<? super Factors> action) {
+            for (long lo = from; lo < to; lo += SEG_LEN) {
+                int len = (int) Math.min(SEG_LEN, to - lo);
+                sieve(lo, len);
+                emit(lo, len, action);
+            }
+        }
+
+        /**
+         * Divides every base prime out of the segment's cofactors. q is a multiple of odd p iff
+         * q·p⁻¹ mod 2⁶⁴ ≤ ⌊(2⁶⁴ − 1) / p⌋, and then q·p⁻¹ is q / p.
+         */
+        private void sieve(long lo, int len) {
+            for (int i = 0; i < len; i++) rest[i] = lo + i;
+            Arrays.fill(head, 0, len, -1);
+            used = 0;
+            int active = PrimeTable.count(base, (int) BucketSieve.isqrt(lo + len - 1));
+            long end = lo + len;
+            if (active > 0) {
+                long m = Math.max(next[0], lo + (lo & 1));
+                for (; m < end; m += 2) {
+                    int s = (int) (m - lo), e = Long.numberOfTrailingZeros(rest[s]);
+                    rest[s] >>>= e;
+                    append(s, 2, e);
+                }
+                next[0] = m;
+            }
+            for (int k = 1; k < active; k++) {
+                long p = base[k], x = inv[k], lim = max[k], m = next[k];
+                if (m < lo) m = (lo + p - 1) / p * p;     // just activated: p² passed lo only now
+                for (; m < end; m += p) {
+                    int s = (int) (m - lo);
+                    long r = rest[s] * x;
+                    int e = 1;
+                    while (Long.compareUnsigned(r * x, lim) <= 0) {
+                        r *= x;
+                        e++;
+                    }
+                    rest[s] = r;
+                    append(s, p, e);
+                }
+                next[k] = m;
+            }
+        }
+
+        private void append(int s, long p, int e) {
+            if (used == poolPrime.length) {
+                int cap = used + (used >>> 1);
+                poolPrime = Arrays.copyOf(poolPrime, cap);
+                poolExp = Arrays.copyOf(poolExp, cap);
+                poolNext = Arrays.copyOf(poolNext, cap);
+            }
+            poolPrime[used] = p;
+            poolExp[used] = e;
+            poolNext[used] = -1;
+            if (head[s] < 0) head[s] = used;
+            else poolNext[tail[s]] = used;
+            tail[s] = used++;
+        }
+
+        private void emit(long lo, int len, Consumer<? super Factors> action) {
+            Factors f = view;
+            for (int i = 0; i < len; i++) {
+                f.n = lo + i;
+                f.count = 0;
+                for (int at = head[i]; at >= 0; at = poolNext[at]) f.add(poolPrime[at], poolExp[at]);
+                if (rest[i] > 1) f.add(rest[i], 1);
+                action.accept(f);
+            }
+        }
+    }
+}
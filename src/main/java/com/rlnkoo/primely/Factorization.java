@@ -1,10 +1,27 @@
 package com.rlnkoo.primely;
 
 import java.math.BigInteger;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
-/** Result of factorization: factor -> exponent map, completeness flag, and method tag. */
-public record Factorization(Map<BigInteger,Integer> factors, boolean complete, String method) {
+/**
+ * Result of factorization: factor -> exponent map, completeness flag, and method tag, plus the
+ * status of every factor ≥ 2 and the method that split it off.
+ *
+ * {@code complete} is true only when every factor is prime or probable prime; factors above
+ * 2⁶³ are reported {@link Status#PROBABLE_PRIME}, smaller ones are decided deterministically.
+ */
+public record Factorization(Map<BigInteger,Integer> factors, boolean complete, String method,
+                            Map<BigInteger,Status> status, Map<BigInteger,String> foundBy) {
+
+    /** What is known about one factor; UNKNOWN marks input a deadline caught before it was tested. */
+    public enum Status { PROVEN_PRIME, PROBABLE_PRIME, COMPOSITE, UNKNOWN }
+
+    /** Derives statuses from the factors themselves and credits every factor to {@code method}. */
+    public Factorization(Map<BigInteger,Integer> factors, boolean complete, String method) {
+        this(factors, complete, method, statusOf(factors), creditAll(factors, method));
+    }
 
     /** Reconstructs the product from the factors/exponents. */
     public BigInteger reconstruct() {
@@ -12,4 +29,30 @@ public record Factorization(Map<BigInteger,Integer> factors, boolean complete, S
                 .map(e -> e.getKey().pow(e.getValue()))
                 .reduce(BigInteger.ONE, BigInteger::multiply);
     }
-}
\ No newline at end of file
+
+    /** The factors still to be split (composite or untested), ascending; empty when complete. */
+    public List<BigInteger> composites() {
+        return status.entrySet().stream()
+                .filter(e -> e.getValue() == Status.COMPOSITE || e.getValue() == Status.UNKNOWN)
+                .map(Map.Entry::getKey).sorted().toList();
+    }
+
+    /** PROVEN_PRIME or COMPOSITE below 2⁶³, PROBABLE_PRIME or COMPOSITE above (verdict cached). */
+    static Status statusOf(BigInteger p) {
+        if (p.bitLength() < 64) return Primes.isPrimeDet64(p.longValue()) ? Status.PROVEN_PRIME : Status.COMPOSITE;
+        boolean prime = Caches.primality().computeIfAbsent(p, k -> k.isProbablePrime(40));
+        return prime ? Status.PROBABLE_PRIME : Status.COMPOSITE;
+    }
+
+    private static Map<BigInteger,Status> statusOf(Map<BigInteger,Integer> factors) {
+        Map<BigInteger,Status> m = new TreeMap<>();
+        for (BigInteger p : factors.keySet()) if (p.compareTo(BigInteger.TWO) >= 0) m.put(p, statusOf(p));
+        return m;
+    }
+
+    private static Map<BigInteger,String> creditAll(Map<BigInteger,Integer> factors, String method) {
+        Map<BigInteger,String> m = new TreeMap<>();
+        for (BigInteger p : factors.keySet()) if (p.compareTo(BigInteger.TWO) >= 0) m.put(p, method);
+        return m;
+    }
+}
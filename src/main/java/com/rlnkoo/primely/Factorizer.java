@@ -1,162 +1,163 @@
 package com.rlnkoo.primely;
 
 import java.math.BigInteger;
-import java.security.SecureRandom;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
- * Best-effort integer factorization: trial division, Pollard Rho (Brent), Pollard p−1 (phase I),
- * and a minimal ECM phase I sketch.
+ * Best-effort integer factorization: trial division, Pollard Rho (Brent), Pollard p−1 and ECM
+ * (both with stage 2), and the self-initialising quadratic sieve.
  *
- * Not a silver bullet for very large inputs; ECM here is educational and minimal.
+ * Composites of {@value FactorJob#SIQS_BITS} to {@value FactorJob#SIQS_MAX_BITS} bits without small
+ * factors go to SIQS, which handles balanced semiprimes up to about 90 digits; bigger ones rely on
+ * ECM at the full depth, smaller ones fall back on a long final rho race.
  */
 public final class Factorizer {
-    private static final SecureRandom RNG = new SecureRandom();
     private static final BigInteger TWO = BigInteger.TWO;
+    /** Steps of the rho walk accumulated into one product before each gcd. */
+    static final int RHO_BATCH = 128;
 
     private Factorizer() {}
 
-    /** Factors n into a map<prime, exponent>. May mark as complete=true when it believes it’s done. */
+    /**
+     * Factors n into a map<prime, exponent> with {@link FactorOptions#DEFAULT}: no deadline, but
+     * a cofactor that outlasts every method, including a 30 s final rho race, is returned
+     * {@link Factorization.Status#COMPOSITE} with {@code complete=false}. Served from
+     * {@link Caches#factorizations()} when n was factored before.
+     */
     public static Factorization factor(BigInteger n) {
-        Map<BigInteger,Integer> map = new TreeMap<>();
-        if (n.signum() < 0) { map.put(BigInteger.valueOf(-1),1); n = n.negate(); }
-        if (n.signum() == 0) { map.put(BigInteger.ZERO,1); return new Factorization(map, true, "zero"); }
+        Factorization f = cached(n);
+        return f != null ? f : remember(n, new FactorJob(n, FactorOptions.DEFAULT).run(() -> false));
+    }
 
-        for (int p : smallPrimesUpTo(10_000)) {
-            BigInteger P = BigInteger.valueOf(p);
-            while (n.mod(P).equals(BigInteger.ZERO)) { merge(map, P); n = n.divide(P); }
-        }
-        if (n.equals(BigInteger.ONE)) return new Factorization(map, true, "trial");
-
-        Deque<BigInteger> st = new ArrayDeque<>();
-        st.push(n);
-        while (!st.isEmpty()) {
-            BigInteger m = st.pop();
-            if (m.isProbablePrime(40)) { merge(map, m); continue; }
-
-            BigInteger d = rhoBrent(m);
-            if (d.equals(BigInteger.ONE) || d.equals(m)) d = pollardPMinus1(m, 50_000);
-            if (d.equals(BigInteger.ONE) || d.equals(m)) d = ecmPhase1(m, 50_000);
-
-            if (d.equals(BigInteger.ONE) || d.equals(m)) {
-                merge(map, m);
-            } else {
-                st.push(d);
-                st.push(m.divide(d));
+    /**
+     * Factors n on the options' executor (or a daemon thread) within their limits. When the
+     * deadline passes the future completes with what has been found so far: the primes split off,
+     * the cofactors still {@link Factorization.Status#COMPOSITE} and {@code complete=false}.
+     * Reaching the deadline or cancelling the future stops rho, p−1, ECM and SIQS at their next
+     * checkpoint.
+     */
+    public static CompletableFuture<Factorization> factorAsync(BigInteger n, FactorOptions options) {
+        Factorization hit = cached(n);
+        if (hit != null) return CompletableFuture.completedFuture(hit);
+        FactorJob job = new FactorJob(n, options);
+        CompletableFuture<Factorization> result = new CompletableFuture<>();
+        Runnable driver = () -> {
+            try {
+                result.complete(remember(n, job.run(result::isDone)));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
             }
+        };
+        if (options.executor() != null) {
+            options.executor().execute(driver);
+        } else {
+            Thread t = new Thread(driver, "primely-factor");
+            t.setDaemon(true);
+            t.start();
         }
-        return new Factorization(map, true, "trial+rho+p-1+ecm1");
+        if (options.timeout() != null) {
+            CompletableFuture.delayedExecutor(options.timeout().toNanos(), TimeUnit.NANOSECONDS)
+                    .execute(() -> result.complete(job.snapshot()));
+        }
+        return result;
+    }
+
+    private static Factorization cached(BigInteger n) {
+        return n.bitLength() < 64 ? null : Caches.factorizations().get(n);
+    }
+
+    /** Caches f if it is complete and n is big enough to be worth it; returns f. */
+    private static Factorization remember(BigInteger n, Factorization f) {
+        if (f.complete() && n.bitLength() >= 64) Caches.factorizations().put(n, f);
+        return f;
     }
 
-    static void merge(Map<BigInteger,Integer> map, BigInteger p) {
-        map.merge(p, 1, Integer::sum);
+    /**
+     * Factors n ≥ 1 without BigInteger: trial division, deterministic 64-bit primality,
+     * SQUFOF below 2^40 and Montgomery-form Brent rho above. Always complete.
+     */
+    public static LongFactorization factor(long n) {
+        return Factor64.factor(n);
     }
 
-    // Pollard Rho (Brent)
+    /** One Pollard Rho (Brent) walk with random (c, seed); returns n when it collapses. */
     static BigInteger rhoBrent(BigInteger n) {
         if (n.mod(TWO).equals(BigInteger.ZERO)) return TWO;
-        BigInteger y = new BigInteger(n.bitLength(), RNG).mod(n);
-        BigInteger c = new BigInteger(n.bitLength(), RNG).mod(n);
-        BigInteger m = new BigInteger(Math.max(2, n.bitLength() / 2), RNG).mod(n);
-        BigInteger g = BigInteger.ONE, r = BigInteger.ONE, q = BigInteger.ONE, x = BigInteger.ZERO, ys;
-
-        while (g.equals(BigInteger.ONE)) {
-            x = y;
-            for (BigInteger i = BigInteger.ZERO; i.compareTo(r) < 0; i = i.add(BigInteger.ONE))
-                y = f(y, c, n);
-
-            BigInteger k = BigInteger.ZERO;
-            while (k.compareTo(r) < 0 && g.equals(BigInteger.ONE)) {
-                ys = y;
-                BigInteger upper = k.add(m).min(r);
-                for (; k.compareTo(upper) < 0; k = k.add(BigInteger.ONE)) {
-                    y = f(y, c, n);
-                    q = q.multiply(x.subtract(y).abs()).mod(n);
-                }
-                g = q.gcd(n);
-                if (g.equals(BigInteger.ONE)) y = ys;
-            }
-            r = r.shiftLeft(1);
-        }
-        if (g.equals(n)) {
-            do {
-                ys = f(y, c, n);
-                g = (x.subtract(ys).abs()).gcd(n);
-            } while (g.equals(BigInteger.ONE));
-        }
-        return g;
+        return ParallelRho.walk(n, RHO_BATCH, () -> false);
     }
 
-    static BigInteger f(BigInteger x, BigInteger c, BigInteger n) {
-        return x.multiply(x).add(c).mod(n);
+    /**
+     * A proper factor of composite n from {@code threads} Pollard Rho (Brent) walks with
+     * independent (c, seed), raced on their own threads. Each walk takes a gcd every
+     * {@code batch} steps (a power of two) and backtracks when a batch collapses. The first
+     * factor cancels the others; so does cancelling the future or the optional timeout.
+     */
+    public static CompletableFuture<BigInteger> rhoBrentAsync(BigInteger n, int threads, int batch, Duration timeout) {
+        return ParallelRho.async(n, threads, batch, timeout, () -> false);
     }
 
-    // Pollard p−1 (phase I)
-    static BigInteger pollardPMinus1(BigInteger n, int B) {
-        BigInteger a = TWO;
-        for (int j = 2; j <= B; j++) {
-            a = a.modPow(BigInteger.valueOf(j), n);
-            BigInteger g = a.subtract(BigInteger.ONE).gcd(n);
-            if (g.compareTo(BigInteger.ONE) > 0 && g.compareTo(n) < 0) return g;
+    /** Blocking form of {@link #rhoBrentAsync}: empty if the timeout expired first. */
+    public static Optional<BigInteger> rhoBrent(BigInteger n, int threads, int batch, Duration timeout) {
+        try {
+            return Optional.of(rhoBrentAsync(n, threads, batch, timeout).join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) return Optional.empty();
+            throw e;
         }
-        return BigInteger.ONE;
     }
 
-    // ECM phase I (very minimal/educational sketch)
-    static BigInteger ecmPhase1(BigInteger n, int B1) {
-        if (n.mod(TWO).equals(BigInteger.ZERO)) return TWO;
-        int tries = 10;
-        int[] primes = smallPrimesUpTo(B1);
-
-        while (tries-- > 0) {
-            BigInteger x = new BigInteger(n.bitLength(), RNG).mod(n);
-            BigInteger z = BigInteger.ONE;
-            BigInteger A = new BigInteger(n.bitLength(), RNG).mod(n);
-
-            BigInteger[] P = new BigInteger[]{x, z};
-            for (int p : primes) {
-                int e = (int) Math.floor(Math.log(B1) / Math.log(p));
-                for (int i = 0; i < e; i++) {
-                    P = montgomeryMul(P, p, A, n);
-                    BigInteger g = P[1].gcd(n);
-                    if (g.compareTo(BigInteger.ONE) > 0 && g.compareTo(n) < 0) return g;
-                }
-            }
-        }
-        return BigInteger.ONE;
+    /**
+     * Pollard p−1: a proper factor of n, or 1 if none was found. Stage 1 covers p − 1 that are
+     * B1-smooth (prime powers ≤ B1); stage 2 also allows one extra prime factor in (B1, B2].
+     */
+    public static BigInteger pollardPMinus1(BigInteger n, int B1, long B2) {
+        return PMinus1.factor(n, B1, B2, () -> false);
+    }
+
+    /**
+     * Elliptic-curve method: {@code curves} Suyama curves with stage-1 bound B1 and
+     * baby-step giant-step stage 2 up to B2, spread over {@code threads} threads. Completes with
+     * the first proper factor (stopping the other curves), with 1 once every curve has failed,
+     * or exceptionally on the optional timeout; cancelling the future stops the curves too.
+     */
+    public static CompletableFuture<BigInteger> ecmAsync(BigInteger n, int B1, long B2, int curves, int threads, Duration timeout) {
+        return Ecm.async(n, B1, B2, curves, threads, timeout, () -> false);
     }
 
-    // Toy scalar multiply (double-and-add) built on a fake/add placeholder to trigger non-invertible steps.
-    static BigInteger[] montgomeryMul(BigInteger[] P, int k, BigInteger A, BigInteger n) {
-        BigInteger[] R = new BigInteger[]{BigInteger.ONE, BigInteger.ZERO};
-        BigInteger[] Q = P.clone();
-        int kk = k;
-        while (kk > 0) {
-            if ((kk & 1) == 1) R = montgomeryAdd(R, Q, A, n);
-            Q = montgomeryAdd(Q, Q, A, n);
-            kk >>= 1;
+    /**
+     * ECM tuned for factors of up to {@code digits} decimal digits: runs the usual (B1, curves)
+     * levels for 15, 20, … digits in turn, B2 = 100·B1. Empty if nothing was found before the
+     * levels ran out or the optional timeout expired.
+     */
+    public static Optional<BigInteger> ecm(BigInteger n, int digits, int threads, Duration timeout) {
+        if (threads < 1) throw new IllegalArgumentException("threads must be >= 1");
+        try {
+            BigInteger d = Ecm.bySchedule(n, digits, threads, timeout, () -> false);
+            return d.equals(BigInteger.ONE) ? Optional.empty() : Optional.of(d);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) return Optional.empty();
+            throw e;
         }
-        return R;
     }
 
-    // Placeholder “add” that mixes coordinates; not mathematically correct ECM,
-    // but helps to demonstrate gcd(z, n) factor leaks in this educational MVP.
-    static BigInteger[] montgomeryAdd(BigInteger[] P, BigInteger[] Q, BigInteger A, BigInteger n) {
-        BigInteger x = P[0].multiply(Q[0]).add(A).mod(n);
-        BigInteger z = P[1].multiply(Q[1]).subtract(A).abs().mod(n);
-        return new BigInteger[]{x, z};
+    /**
+     * Self-initialising quadratic sieve: a proper factor of composite n, or 1 if none was found.
+     * Sieving runs on {@code threads} threads, each on its own batch of polynomials; the linear
+     * algebra is block Lanczos over GF(2). Meant for composites of 30 to about 90 digits without
+     * small factors, where its running time depends only on the size of n.
+     */
+    public static BigInteger siqs(BigInteger n, int threads) {
+        if (n.compareTo(BigInteger.valueOf(4)) < 0 || n.isProbablePrime(40)) throw new IllegalArgumentException("n must be a positive composite");
+        return Siqs.factor(n, threads, () -> false);
     }
 
-    /** Public so other classes (e.g., Primes) can reuse small prime tables. */
+    /** All primes ≤ n; served from the shared {@link PrimeTable}. */
     public static int[] smallPrimesUpTo(int n) {
-        boolean[] c = new boolean[n + 1];
-        for (int i = 2; i * (long) i <= n; i++)
-            if (!c[i]) for (int j = i * i; j <= n; j += i) c[j] = true;
-        int cnt = 0;
-        for (int i = 2; i <= n; i++) if (!c[i]) cnt++;
-        int[] r = new int[cnt];
-        int k = 0;
-        for (int i = 2; i <= n; i++) if (!c[i]) r[k++] = i;
-        return r;
+        return PrimeTable.primesUpTo(n);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,49 @@
+package com.rlnkoo.primely;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/** Result of {@link Factorizer#factor(long)}: ascending distinct primes and their exponents, index by index. */
+public record LongFactorization(long[] primes, int[] exponents) {
+
+    /** Number of distinct prime factors. */
+    public int count() {
+        return primes.length;
+    }
+
+    /** Reconstructs the product from the factors/exponents. */
+    public long reconstruct() {
+        long r = 1;
+        for (int i = 0; i < primes.length; i++) {
+            for (int e = 0; e < exponents[i]; e++) r *= primes[i];
+        }
+        return r;
+    }
+
+    /** The same factorization as a map-based {@link Factorization}. */
+    public Factorization toFactorization() {
+        Map<BigInteger, Integer> map = new TreeMap<>();
+        for (int i = 0; i < primes.length; i++) map.put(BigInteger.valueOf(primes[i]), exponents[i]);
+        return new Factorization(map, true, "native64");
+    }
+
+    @Override public boolean equals(Object o) {
+        return o instanceof LongFactorization f && Arrays.equals(primes, f.primes) && Arrays.equals(exponents, f.exponents);
+    }
+
+    @Override public int hashCode() {
+        return 31 * Arrays.hashCode(primes) + Arrays.hashCode(exponents);
+    }
+
+    @Override public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < primes.length; i++) {
+            if (i > 0) sb.append(" · ");
+            sb.append(primes[i]);
+            if (exponents[i] > 1) sb.append('^').append(exponents[i]);
+        }
+        return sb.length() == 0 ? "1" : sb.toString();
+    }
+}
@@ -17,13 +17,89 @@ public final class ModMath {
         return a.modInverse(m);
     }
 
+    /**
+     * a[i]^{-1} mod m for every i by Montgomery's trick: one inversion of the running product
+     * and 3(n−1) multiplications. Throws like {@link #modInverse} if any a[i] is not invertible.
+     */
+    public static BigInteger[] batchInverse(BigInteger[] a, BigInteger m) {
+        if (m.signum() <= 0) throw new ArithmeticException("modulus not positive");
+        int n = a.length;
+        BigInteger[] out = new BigInteger[n];
+        if (n == 0) return out;
+        BigInteger[] prefix = new BigInteger[n];
+        prefix[0] = a[0].mod(m);
+        for (int i = 1; i < n; i++) prefix[i] = prefix[i - 1].multiply(a[i]).mod(m);
+        BigInteger inv;
+        try {
+            inv = prefix[n - 1].modInverse(m);
+        } catch (ArithmeticException e) {
+            for (int i = 0; i < n; i++) {
+                if (!a[i].gcd(m).equals(BigInteger.ONE)) throw new ArithmeticException("a[" + i + "] not invertible");
+            }
+            throw e;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            out[i] = inv.multiply(prefix[i - 1]).mod(m);
+            inv = inv.multiply(a[i]).mod(m);
+        }
+        out[0] = inv;
+        return out;
+    }
+
+    /**
+     * A square root of a modulo an odd prime p < 2³¹ by Tonelli–Shanks, or −1 if a is not a
+     * square mod p. The root returned is the smaller of the two.
+     */
+    public static long sqrtMod(long a, long p) {
+        a = Math.floorMod(a, p);
+        if (a == 0) return 0;
+        if (powMod(a, (p - 1) >>> 1, p) != 1) return -1;
+        long r;
+        if ((p & 3) == 3) {
+            r = powMod(a, (p + 1) >>> 2, p);
+        } else {
+            long q = p - 1;
+            int s = Long.numberOfTrailingZeros(q);
+            q >>>= s;
+            long z = 2;
+            while (powMod(z, (p - 1) >>> 1, p) != p - 1) z++;
+            long c = powMod(z, q, p), t = powMod(a, q, p);
+            r = powMod(a, (q + 1) >>> 1, p);
+            while (t != 1) {
+                int i = 0;
+                for (long t2 = t; t2 != 1; t2 = t2 * t2 % p) i++;
+                long b = c;
+                for (int j = 0; j < s - i - 1; j++) b = b * b % p;
+                r = r * b % p;
+                c = b * b % p;
+                t = t * c % p;
+                s = i;
+            }
+        }
+        return Math.min(r, p - r);
+    }
+
+    /** a^e mod m for m < 2³¹. */
+    static long powMod(long a, long e, long m) {
+        long r = 1;
+        a %= m;
+        for (; e > 0; e >>>= 1) {
+            if ((e & 1) != 0) r = r * a % m;
+            a = a * a % m;
+        }
+        return r;
+    }
+
     public static BigInteger gcd(BigInteger a, BigInteger b) { return a.gcd(b); }
 
     public static BigInteger lcm(BigInteger a, BigInteger b) {
         return a.divide(a.gcd(b)).multiply(b);
     }
 
-    /** Chinese Remainder Theorem for pairwise-coprime moduli. */
+    /**
+     * Chinese Remainder Theorem for pairwise-coprime moduli. For many residue vectors over the
+     * same word-sized moduli, {@link CrtPlan} does the per-moduli work only once.
+     */
     public static BigInteger crt(List<BigInteger> residues, List<BigInteger> moduli) {
         if (residues.size() != moduli.size() || residues.isEmpty()) throw new IllegalArgumentException();
         BigInteger x = BigInteger.ZERO;
@@ -0,0 +1,90 @@
+package com.rlnkoo.primely;
+
+/**
+ * Allocation-free Montgomery arithmetic for odd moduli below 2^63.
+ *
+ * Residues are plain {@code long}s in Montgomery form (x·2^64 mod n); callers carry the modulus
+ * and its inverse {@code nInv = n^-1 mod 2^64} themselves, so nothing is ever allocated.
+ */
+final class Montgomery64 {
+    private Montgomery64() {}
+
+    /** n^-1 mod 2^64 for odd n (Newton iteration, each step doubles the correct bits). */
+    static long inverse(long n) {
+        long x = n;                 // correct to 3 bits: n*n ≡ 1 (mod 8)
+        x *= 2 - n * x;
+        x *= 2 - n * x;
+        x *= 2 - n * x;
+        x *= 2 - n * x;
+        x *= 2 - n * x;
+        return x;
+    }
+
+    /** High 64 bits of the unsigned 128-bit product a*b. */
+    static long unsignedMultiplyHigh(long a, long b) {
+        return Math.multiplyHigh(a, b) + ((a >> 63) & b) + ((b >> 63) & a);
+    }
+
+    /** REDC(a*b) = a*b*2^-64 mod n, for a, b in [0, n). */
+    static long mul(long a, long b, long n, long nInv) {
+        long hi = unsignedMultiplyHigh(a, b);
+        long m = a * b * nInv;
+        long r = hi - unsignedMultiplyHigh(m, n);
+        return r < 0 ? r + n : r;
+    }
+
+    /** 2^64 mod n, i.e. the Montgomery form of 1. */
+    static long one(long n) {
+        return Long.remainderUnsigned(-n, n);
+    }
+
+    /** 2^128 mod n, used to move plain residues into Montgomery form. */
+    static long r2(long n) {
+        long r = one(n);
+        if (n < 1L << 32) return Long.remainderUnsigned(r * r, n);
+        for (int i = 0; i < 64; i++) {
+            r <<= 1;                // r < n < 2^63, so no overflow
+            if (r >= n || r < 0) r -= n;
+        }
+        return r;
+    }
+
+    /** Montgomery form of a (0 <= a < n). */
+    static long toMont(long a, long r2, long n, long nInv) {
+        return mul(a, r2, n, nInv);
+    }
+
+    /** Plain residue of a Montgomery-form value. */
+    static long fromMont(long a, long n, long nInv) {
+        return mul(a, 1, n, nInv);
+    }
+
+    /** base^e in Montgomery form; {@code one} is {@link #one(long)} for the same modulus. */
+    static long pow(long base, long e, long one, long n, long nInv) {
+        long r = one;
+        while (e != 0) {
+            if ((e & 1) != 0) r = mul(r, base, n, nInv);
+            base = mul(base, base, n, nInv);
+            e >>>= 1;
+        }
+        return r;
+    }
+
+    /**
+     * One strong probable-prime round to base a for odd n, where n-1 = d*2^s.
+     * All values are plain (non-Montgomery) except where noted.
+     */
+    static boolean strongProbablePrime(long n, long nInv, long one, long r2, long a, long d, int s) {
+        a %= n;
+        if (a == 0) return true;
+        long minusOne = n - one;
+        long x = pow(toMont(a, r2, n, nInv), d, one, n, nInv);
+        if (x == one || x == minusOne) return true;
+        for (int r = 1; r < s; r++) {
+            x = mul(x, x, n, nInv);
+            if (x == minusOne) return true;
+            if (x == one) return false;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,324 @@
+package com.rlnkoo.primely;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Montgomery arithmetic for one odd modulus, on mutable little-endian {@code long[]} limbs.
+ *
+ * Build it once per modulus and keep residues in Montgomery form (x·R mod n, R = 2^(64k)) for the
+ * whole hot loop: multiplication is CIOS with REDC and squaring a separate product-then-REDC pass,
+ * so there is no division and no allocation per step. Every output argument may alias an input.
+ * Instances hold scratch buffers and are therefore not thread-safe; use one per thread.
+ */
+public final class MontgomeryContext {
+    private final BigInteger modulus;
+    private final int k;
+    private final long[] n;
+    private final long nInv;            // -n^-1 mod 2^64
+    private final long[] one, minusOne;
+    private final long[] t, w, s1, s2, s3;
+
+    public MontgomeryContext(BigInteger modulus) {
+        if (modulus.signum() <= 0 || !modulus.testBit(0) || modulus.equals(BigInteger.ONE))
+            throw new IllegalArgumentException("modulus must be odd and > 1");
+        this.modulus = modulus;
+        this.k = (modulus.bitLength() + 63) >>> 6;
+        this.n = limbs(modulus, k);
+        this.nInv = -Montgomery64.inverse(n[0]);
+        this.one = limbs(BigInteger.ONE.shiftLeft(64 * k).mod(modulus), k);
+        this.minusOne = limbs(modulus.subtract(fromLimbs(one)), k);
+        this.t = new long[k + 2];
+        this.w = new long[2 * k];
+        this.s1 = new long[k];
+        this.s2 = new long[k];
+        this.s3 = new long[k];
+    }
+
+    public BigInteger modulus() { return modulus; }
+
+    /** A fresh zeroed residue buffer. */
+    public long[] alloc() { return new long[k]; }
+
+    /** Montgomery form of a (any integer, reduced mod n first). */
+    public long[] toMont(BigInteger a) {
+        long[] r = alloc();
+        toMont(a, r);
+        return r;
+    }
+
+    public void toMont(BigInteger a, long[] out) {
+        fill(a.mod(modulus).shiftLeft(64 * k).mod(modulus), out);
+    }
+
+    /** Plain value of a Montgomery-form residue. */
+    public BigInteger fromMont(long[] a) {
+        long[] one1 = s1;
+        Arrays.fill(one1, 0);
+        one1[0] = 1;
+        mul(a, one1, s2);
+        return fromLimbs(s2);
+    }
+
+    /**
+     * The raw limbs as a BigInteger, without leaving Montgomery form. Since R is a unit,
+     * {@code gcd(raw(a), n) = gcd(a, n)}, which is all the factoring loops need.
+     */
+    public BigInteger raw(long[] a) { return fromLimbs(a); }
+
+    public void setOne(long[] out) { System.arraycopy(one, 0, out, 0, k); }
+    public void copy(long[] a, long[] out) { System.arraycopy(a, 0, out, 0, k); }
+    public boolean isOne(long[] a) { return Arrays.equals(a, one); }
+    public boolean isMinusOne(long[] a) { return Arrays.equals(a, minusOne); }
+
+    public boolean isZero(long[] a) {
+        for (long x : a) if (x != 0) return false;
+        return true;
+    }
+
+    /** out = a·b·R^-1 mod n (CIOS). */
+    public void mul(long[] a, long[] b, long[] out) {
+        final int k = this.k;
+        final long[] n = this.n, t = this.t;
+        Arrays.fill(t, 0);
+        for (int i = 0; i < k; i++) {
+            long ai = a[i], c = 0;
+            for (int j = 0; j < k; j++) {
+                long lo = ai * b[j], hi = Montgomery64.unsignedMultiplyHigh(ai, b[j]);
+                lo += t[j]; if (Long.compareUnsigned(lo, t[j]) < 0) hi++;
+                lo += c; if (Long.compareUnsigned(lo, c) < 0) hi++;
+                t[j] = lo; c = hi;
+            }
+            long sum = t[k] + c;
+            t[k + 1] = Long.compareUnsigned(sum, c) < 0 ? 1 : 0;
+            t[k] = sum;
+
+            long m = t[0] * nInv;
+            long lo = m * n[0], hi = Montgomery64.unsignedMultiplyHigh(m, n[0]);
+            lo += t[0]; if (Long.compareUnsigned(lo, t[0]) < 0) hi++;
+            c = hi;
+            for (int j = 1; j < k; j++) {
+                lo = m * n[j]; hi = Montgomery64.unsignedMultiplyHigh(m, n[j]);
+                lo += t[j]; if (Long.compareUnsigned(lo, t[j]) < 0) hi++;
+                lo += c; if (Long.compareUnsigned(lo, c) < 0) hi++;
+                t[j - 1] = lo; c = hi;
+            }
+            sum = t[k] + c;
+            t[k - 1] = sum;
+            t[k] = t[k + 1] + (Long.compareUnsigned(sum, c) < 0 ? 1 : 0);
+        }
+        if (t[k] != 0 || !lessThanN(t)) subN(t);
+        System.arraycopy(t, 0, out, 0, k);
+    }
+
+    /** out = a²·R^-1 mod n; off-diagonal products are formed once and doubled. */
+    public void sqr(long[] a, long[] out) {
+        final int k = this.k;
+        final long[] w = this.w;
+        Arrays.fill(w, 0);
+        for (int i = 0; i < k - 1; i++) {
+            long ai = a[i], c = 0;
+            for (int j = i + 1; j < k; j++) {
+                long lo = ai * a[j], hi = Montgomery64.unsignedMultiplyHigh(ai, a[j]);
+                lo += w[i + j]; if (Long.compareUnsigned(lo, w[i + j]) < 0) hi++;
+                lo += c; if (Long.compareUnsigned(lo, c) < 0) hi++;
+                w[i + j] = lo; c = hi;
+            }
+            w[i + k] = c;
+        }
+        long top = 0;
+        for (int i = 0; i < 2 * k; i++) {
+            long x = w[i];
+            w[i] = (x << 1) | top;
+            top = x >>> 63;
+        }
+        long c = 0;
+        for (int i = 0; i < k; i++) {
+            long ai = a[i];
+            long lo = ai * ai, hi = Montgomery64.unsignedMultiplyHigh(ai, ai);
+            long x = w[2 * i] + lo;
+            long c1 = Long.compareUnsigned(x, lo) < 0 ? 1 : 0;
+            x += c;
+            c1 += Long.compareUnsigned(x, c) < 0 ? 1 : 0;
+            w[2 * i] = x;
+            long y = w[2 * i + 1] + hi;
+            long c2 = Long.compareUnsigned(y, hi) < 0 ? 1 : 0;
+            y += c1;
+            c2 += Long.compareUnsigned(y, c1) < 0 ? 1 : 0;
+            w[2 * i + 1] = y;
+            c = c2;
+        }
+        redc(w, out);
+    }
+
+    /** out = w·R^-1 mod n for a double-width w < n·R (2k limbs); clobbers w. */
+    private void redc(long[] w, long[] out) {
+        final int k = this.k;
+        final long[] n = this.n;
+        long extra = 0;
+        for (int i = 0; i < k; i++) {
+            long m = w[i] * nInv, c = 0;
+            for (int j = 0; j < k; j++) {
+                long lo = m * n[j], hi = Montgomery64.unsignedMultiplyHigh(m, n[j]);
+                lo += w[i + j]; if (Long.compareUnsigned(lo, w[i + j]) < 0) hi++;
+                lo += c; if (Long.compareUnsigned(lo, c) < 0) hi++;
+                w[i + j] = lo; c = hi;
+            }
+            long sum = w[i + k] + c;
+            long c1 = Long.compareUnsigned(sum, c) < 0 ? 1 : 0;
+            sum += extra;
+            c1 += Long.compareUnsigned(sum, extra) < 0 ? 1 : 0;
+            w[i + k] = sum;
+            extra = c1;
+        }
+        System.arraycopy(w, k, out, 0, k);
+        if (extra != 0 || !lessThanN(out)) subN(out);
+    }
+
+    /** out = a + b mod n. */
+    public void add(long[] a, long[] b, long[] out) {
+        long carry = 0;
+        for (int i = 0; i < k; i++) {
+            long x = a[i], s = x + b[i];
+            long c1 = Long.compareUnsigned(s, x) < 0 ? 1 : 0;
+            long s2 = s + carry;
+            carry = c1 | (Long.compareUnsigned(s2, s) < 0 ? 1 : 0);
+            out[i] = s2;
+        }
+        if (carry != 0 || !lessThanN(out)) subN(out);
+    }
+
+    /** out = a - b mod n. */
+    public void sub(long[] a, long[] b, long[] out) {
+        long borrow = 0;
+        for (int i = 0; i < k; i++) {
+            long x = a[i], d = x - b[i];
+            long b1 = Long.compareUnsigned(x, b[i]) < 0 ? 1 : 0;
+            long d2 = d - borrow;
+            borrow = b1 | (Long.compareUnsigned(d, borrow) < 0 ? 1 : 0);
+            out[i] = d2;
+        }
+        if (borrow != 0) addN(out);
+    }
+
+    /** out = 2a mod n. */
+    public void dbl(long[] a, long[] out) { add(a, a, out); }
+
+    /** out = a / 2 mod n. */
+    public void half(long[] a, long[] out) {
+        long top = 0;
+        if ((a[0] & 1) != 0) {
+            if (out != a) System.arraycopy(a, 0, out, 0, k);
+            top = addN(out);
+        } else if (out != a) {
+            System.arraycopy(a, 0, out, 0, k);
+        }
+        for (int i = 0; i < k - 1; i++) out[i] = (out[i] >>> 1) | (out[i + 1] << 63);
+        out[k - 1] = (out[k - 1] >>> 1) | (top << 63);
+    }
+
+    /** out = base^e (e ≥ 0), left-to-right binary. */
+    public void pow(long[] base, BigInteger e, long[] out) {
+        long[] b = s3;
+        copy(base, b);
+        setOne(out);
+        for (int i = e.bitLength() - 1; i >= 0; i--) {
+            sqr(out, out);
+            if (e.testBit(i)) mul(out, b, out);
+        }
+    }
+
+    /** out = base^e for a word-sized exponent e ≥ 0. */
+    public void pow(long[] base, long e, long[] out) {
+        long[] b = s3;
+        copy(base, b);
+        setOne(out);
+        for (int i = 63 - Long.numberOfLeadingZeros(e); i >= 0; i--) {
+            sqr(out, out);
+            if ((e >>> i & 1) != 0) mul(out, b, out);
+        }
+    }
+
+    /**
+     * Lucas sequences (U_k, V_k) and Q^k for parameters (P, Q) with D = P² − 4Q, by the binary
+     * method with halving mod n. p, q, d and the outputs u, v, qk are in Montgomery form.
+     */
+    public void lucas(long[] p, long[] q, long[] d, BigInteger kk, long[] u, long[] v, long[] qk) {
+        boolean pIsOne = isOne(p);
+        Arrays.fill(u, 0);
+        dbl(one, v);
+        setOne(qk);
+        for (int i = kk.bitLength() - 1; i >= 0; i--) {
+            mul(u, v, u);
+            sqr(v, v);
+            dbl(qk, s1);
+            sub(v, s1, v);
+            sqr(qk, qk);
+            if (kk.testBit(i)) {
+                if (pIsOne) copy(u, s1); else mul(p, u, s1);
+                add(s1, v, s1);             // P·U + V
+                mul(d, u, s2);
+                if (!pIsOne) mul(p, v, v);
+                add(s2, v, v);              // D·U + P·V
+                half(s1, u);
+                half(v, v);
+                mul(qk, q, qk);
+            }
+        }
+    }
+
+    private boolean lessThanN(long[] x) {
+        for (int i = k - 1; i >= 0; i--) {
+            if (x[i] != n[i]) return Long.compareUnsigned(x[i], n[i]) < 0;
+        }
+        return false;
+    }
+
+    private void subN(long[] x) {
+        long borrow = 0;
+        for (int i = 0; i < k; i++) {
+            long xi = x[i], d = xi - n[i];
+            long b1 = Long.compareUnsigned(xi, n[i]) < 0 ? 1 : 0;
+            long d2 = d - borrow;
+            borrow = b1 | (Long.compareUnsigned(d, borrow) < 0 ? 1 : 0);
+            x[i] = d2;
+        }
+    }
+
+    /** x += n over k limbs; returns the carry out of the top limb. */
+    private long addN(long[] x) {
+        long carry = 0;
+        for (int i = 0; i < k; i++) {
+            long xi = x[i], s = xi + n[i];
+            long c1 = Long.compareUnsigned(s, xi) < 0 ? 1 : 0;
+            long s2 = s + carry;
+            carry = c1 | (Long.compareUnsigned(s2, s) < 0 ? 1 : 0);
+            x[i] = s2;
+        }
+        return carry;
+    }
+
+    private static long[] limbs(BigInteger x, int k) {
+        long[] r = new long[k];
+        fill(x, r);
+        return r;
+    }
+
+    /** Little-endian 64-bit limbs of x ≥ 0 into out (x must fit). */
+    private static void fill(BigInteger x, long[] out) {
+        byte[] b = x.toByteArray();
+        Arrays.fill(out, 0);
+        for (int i = b.length - 1, bit = 0; i >= 0 && bit < 64 * out.length; i--, bit += 8) {
+            out[bit >>> 6] |= (b[i] & 0xFFL) << (bit & 63);
+        }
+    }
+
+    private static BigInteger fromLimbs(long[] a) {
+        byte[] b = new byte[a.length * 8];
+        for (int i = 0; i < a.length; i++) {
+            long x = a[i];
+            for (int j = 0; j < 8; j++) b[b.length - 1 - (i * 8 + j)] = (byte) (x >>> (8 * j));
+        }
+        return new BigInteger(1, b);
+    }
+}
@@ -0,0 +1,347 @@
+package com.rlnkoo.primely;
+
+import java.util.SplittableRandom;
+
+/**
+ * Null-space vectors of a sparse matrix over GF(2): the linear algebra step of {@link Siqs}.
+ *
+ * The matrix has {@code nrows} rows and one column per {@code cols[j]}, which lists the rows
+ * holding a 1 in column j. Up to 64 dependencies come back packed: bit d of {@code deps[j]}
+ * says whether column j belongs to dependency d, and the columns of every dependency reported
+ * sum to zero (each one is checked before it is returned).
+ *
+ * Small matrices go through Gaussian elimination on packed {@code long[]} rows. Larger ones go
+ * through Montgomery's block Lanczos with 64-bit blocks on BᵀB, which needs only products with
+ * B and Bᵀ and so stays linear in the matrix weight per iteration; a run that breaks down is
+ * retried with a fresh random start, and elimination is the last resort.
+ */
+final class NullSpace {
+    private static final int GAUSS_LIMIT = 1 << 11;
+    private static final int LANCZOS_ATTEMPTS = 4;
+
+    private NullSpace() {}
+
+    /** Packed dependencies, one bit per dependency; all zero if none was found. */
+    static long[] find(int nrows, int[][] cols, SplittableRandom rnd) {
+        if (cols.length > GAUSS_LIMIT) {
+            for (int attempt = 0; attempt < LANCZOS_ATTEMPTS; attempt++) {
+                long[] deps = lanczos(nrows, cols, rnd);
+                if (deps != null) return deps;
+            }
+        }
+        return gauss(nrows, cols);
+    }
+
+    /** Forward elimination over the columns, each carrying an identity part to track combinations. */
+    static long[] gauss(int nrows, int[][] cols) {
+        int ncols = cols.length, rw = (nrows + 63) >>> 6, w = rw + ((ncols + 63) >>> 6);
+        long[][] m = new long[ncols][w];
+        for (int j = 0; j < ncols; j++) {
+            for (int r : cols[j]) m[j][r >>> 6] ^= 1L << r;
+            m[j][rw + (j >>> 6)] |= 1L << j;
+        }
+        boolean[] used = new boolean[ncols];
+        for (int r = 0; r < nrows; r++) {
+            int word = r >>> 6;
+            long bit = 1L << r;
+            int pivot = -1;
+            for (int j = 0; j < ncols; j++) {
+                if (!used[j] && (m[j][word] & bit) != 0) { pivot = j; break; }
+            }
+            if (pivot < 0) continue;
+            used[pivot] = true;
+            long[] pr = m[pivot];
+            for (int j = pivot + 1; j < ncols; j++) {
+                if (used[j] || (m[j][word] & bit) == 0) continue;
+                long[] row = m[j];
+                for (int k = word; k < w; k++) row[k] ^= pr[k];
+            }
+        }
+        long[] deps = new long[ncols];
+        int d = 0;
+        for (int j = 0; j < ncols && d < 64; j++) {
+            if (used[j]) continue;
+            for (int c = 0; c < ncols; c++) {
+                if ((m[j][rw + (c >>> 6)] >>> c & 1) != 0) deps[c] |= 1L << d;
+            }
+            d++;
+        }
+        return verified(nrows, cols, deps);
+    }
+
+    /** Block Lanczos (Montgomery 1995) on A = BᵀB; null if the iteration broke down. */
+    static long[] lanczos(int nrows, int[][] cols, SplittableRandom rnd) {
+        int n = cols.length;
+        long[][] v = {new long[n], new long[n], new long[n]};
+        long[] vnext = new long[n], x = new long[n], v0 = new long[n], scratch = new long[nrows];
+        long[][] vtav = new long[2][64], vta2v = new long[2][64], winv = new long[3][64];
+        long[] d = new long[64], e = new long[64], f = new long[64], f2 = new long[64];
+        int[][] s = new int[2][64];
+        for (int i = 0; i < 64; i++) s[1][i] = i;
+        int dim1 = 64;
+        long mask1 = -1L;
+
+        for (int i = 0; i < n; i++) x[i] = rnd.nextLong();
+        mulB(cols, x, scratch);
+        mulBt(cols, scratch, v[0]);
+        System.arraycopy(v[0], 0, v0, 0, n);
+
+        int maxIter = n / 60 + 100;
+        for (int iter = 0; ; iter++) {
+            if (iter > maxIter) return null;
+            mulB(cols, v[0], scratch);
+            mulBt(cols, scratch, vnext);
+            innerProduct(v[0], vnext, vtav[0]);
+            innerProduct(vnext, vnext, vta2v[0]);
+            if (isZero(vtav[0])) break;
+
+            int dim0 = nonsingularSub(vtav[0], s[0], s[1], dim1, winv[0]);
+            if (dim0 == 0) return null;
+            long mask0 = 0;
+            for (int i = 0; i < dim0; i++) mask0 |= 1L << s[0][i];
+            if ((mask0 | mask1) != -1L) return null;
+            if (mask0 != -1L) for (int i = 0; i < n; i++) vnext[i] &= mask0;
+
+            // x += V_i Winv_i V_iᵀ V_0
+            innerProduct(v[0], v0, d);
+            mul64(winv[0], d, d);
+            mulAcc(v[0], d, x);
+
+            // D = I − Winv_i (V_iᵀA²V_i S Sᵀ + V_iᵀAV_i)
+            for (int i = 0; i < 64; i++) d[i] = (vta2v[0][i] & mask0) ^ vtav[0][i];
+            mul64(winv[0], d, d);
+            for (int i = 0; i < 64; i++) d[i] ^= 1L << i;
+            mulAcc(v[0], d, vnext);
+
+            // E = −Winv_{i−1} V_iᵀAV_i S Sᵀ
+            mul64(winv[1], vtav[0], e);
+            for (int i = 0; i < 64; i++) e[i] &= mask0;
+            mulAcc(v[1], e, vnext);
+
+            // F = −Winv_{i−2} (I − V_{i−1}ᵀAV_{i−1} Winv_{i−1}) (V_{i−1}ᵀA²V_{i−1} S' S'ᵀ + V_{i−1}ᵀAV_{i−1}) S Sᵀ
+            mul64(vtav[1], winv[1], f);
+            for (int i = 0; i < 64; i++) f[i] ^= 1L << i;
+            mul64(winv[2], f, f);
+            for (int i = 0; i < 64; i++) f2[i] = ((vta2v[1][i] & mask1) ^ vtav[1][i]) & mask0;
+            mul64(f, f2, f);
+            mulAcc(v[2], f, vnext);
+
+            long[] t = v[2];
+            v[2] = v[1];
+            v[1] = v[0];
+            v[0] = vnext;
+            vnext = t;
+            long[] w = winv[2];
+            winv[2] = winv[1];
+            winv[1] = winv[0];
+            winv[0] = w;
+            w = vtav[1]; vtav[1] = vtav[0]; vtav[0] = w;
+            w = vta2v[1]; vta2v[1] = vta2v[0]; vta2v[0] = w;
+            int[] ts = s[1]; s[1] = s[0]; s[0] = ts;
+            mask1 = mask0;
+            dim1 = dim0;
+        }
+        return combine(nrows, cols, x, v[0]);
+    }
+
+    /**
+     * Most columns of x and v are null vectors of BᵀB but not yet of B: eliminate over the 128
+     * columns of (Bx | Bv) and apply the zero combinations to (x | v).
+     */
+    private static long[] combine(int nrows, int[][] cols, long[] x, long[] v) {
+        int n = cols.length, nw = (nrows + 63) >>> 6;
+        long[] bx = new long[nrows], bv = new long[nrows];
+        mulB(cols, x, bx);
+        mulB(cols, v, bv);
+        long[][] vec = new long[128][nw];
+        long[][] combo = new long[128][2];
+        for (int r = 0; r < nrows; r++) {
+            long a = bx[r], b = bv[r];
+            while (a != 0) {
+                int c = Long.numberOfTrailingZeros(a);
+                vec[c][r >>> 6] |= 1L << r;
+                a &= a - 1;
+            }
+            while (b != 0) {
+                int c = Long.numberOfTrailingZeros(b);
+                vec[64 + c][r >>> 6] |= 1L << r;
+                b &= b - 1;
+            }
+        }
+        for (int c = 0; c < 128; c++) combo[c][c >>> 6] = 1L << c;
+        boolean[] used = new boolean[128];
+        for (int r = 0; r < nrows; r++) {
+            int word = r >>> 6;
+            long bit = 1L << r;
+            int pivot = -1;
+            for (int c = 0; c < 128; c++) {
+                if (!used[c] && (vec[c][word] & bit) != 0) { pivot = c; break; }
+            }
+            if (pivot < 0) continue;
+            used[pivot] = true;
+            for (int c = 0; c < 128; c++) {
+                if (used[c] || (vec[c][word] & bit) == 0) continue;
+                for (int k = word; k < nw; k++) vec[c][k] ^= vec[pivot][k];
+                combo[c][0] ^= combo[pivot][0];
+                combo[c][1] ^= combo[pivot][1];
+            }
+        }
+        long[] deps = new long[n];
+        int d = 0;
+        for (int c = 0; c < 128 && d < 64; c++) {
+            if (used[c]) continue;
+            long lo = combo[c][0], hi = combo[c][1], bit = 1L << d;
+            boolean any = false;
+            for (int j = 0; j < n; j++) {
+                if (((Long.bitCount(x[j] & lo) + Long.bitCount(v[j] & hi)) & 1) != 0) {
+                    deps[j] |= bit;
+                    any = true;
+                }
+            }
+            if (any) d++;
+        }
+        long[] ok = verified(nrows, cols, deps);
+        for (long dep : ok) if (dep != 0) return ok;
+        return null;
+    }
+
+    /** Clears the bits of dependencies whose columns do not sum to zero. */
+    private static long[] verified(int nrows, int[][] cols, long[] deps) {
+        long[] sum = new long[nrows];
+        mulB(cols, deps, sum);
+        long bad = 0;
+        for (long s : sum) bad |= s;
+        if (bad != 0) for (int j = 0; j < deps.length; j++) deps[j] &= ~bad;
+        return deps;
+    }
+
+    /** out = B·v, with out sized nrows. */
+    private static void mulB(int[][] cols, long[] v, long[] out) {
+        java.util.Arrays.fill(out, 0);
+        for (int j = 0; j < cols.length; j++) {
+            long a = v[j];
+            if (a == 0) continue;
+            for (int r : cols[j]) out[r] ^= a;
+        }
+    }
+
+    /** out = Bᵀ·w, with out sized ncols. */
+    private static void mulBt(int[][] cols, long[] w, long[] out) {
+        for (int j = 0; j < cols.length; j++) {
+            long a = 0;
+            for (int r : cols[j]) a ^= w[r];
+            out[j] = a;
+        }
+    }
+
+    /** c = xᵀ·y for n×64 blocks x and y, via per-byte accumulators. */
+    private static void innerProduct(long[] x, long[] y, long[] c) {
+        long[] acc = new long[8 * 256];
+        for (int i = 0; i < x.length; i++) {
+            long a = x[i], b = y[i];
+            if (a == 0) continue;
+            for (int k = 0; k < 8; k++) acc[k << 8 | (int) (a >>> (k << 3)) & 0xFF] ^= b;
+        }
+        for (int k = 0; k < 8; k++) {
+            for (int bit = 0; bit < 8; bit++) {
+                long r = 0;
+                for (int byt = 1 << bit; byt < 256; byt = (byt + 1) | (1 << bit)) r ^= acc[k << 8 | byt];
+                c[(k << 3) + bit] = r;
+            }
+        }
+    }
+
+    /** y ^= v·m for an n×64 block v and a 64×64 matrix m, via per-byte tables. */
+    private static void mulAcc(long[] v, long[] m, long[] y) {
+        long[] t = table(m);
+        for (int i = 0; i < v.length; i++) {
+            long a = v[i];
+            if (a == 0) continue;
+            long r = 0;
+            for (int k = 0; k < 8; k++) r ^= t[k << 8 | (int) (a >>> (k << 3)) & 0xFF];
+            y[i] ^= r;
+        }
+    }
+
+    /** t[k·256 + b] = XOR of the rows 8k + j of m over the set bits j of b. */
+    private static long[] table(long[] m) {
+        long[] t = new long[8 * 256];
+        for (int k = 0; k < 8; k++) {
+            for (int b = 1; b < 256; b++) {
+                int low = Integer.numberOfTrailingZeros(b);
+                t[k << 8 | b] = t[k << 8 | (b & (b - 1))] ^ m[(k << 3) + low];
+            }
+        }
+        return t;
+    }
+
+    /** c = a·b for 64×64 matrices stored one row per word; c may alias a or b. */
+    private static void mul64(long[] a, long[] b, long[] c) {
+        long[] t = table(b), out = new long[64];
+        for (int i = 0; i < 64; i++) {
+            long r = 0, x = a[i];
+            for (int k = 0; k < 8; k++) r ^= t[k << 8 | (int) (x >>> (k << 3)) & 0xFF];
+            out[i] = r;
+        }
+        System.arraycopy(out, 0, c, 0, 64);
+    }
+
+    private static boolean isZero(long[] m) {
+        for (long r : m) if (r != 0) return false;
+        return true;
+    }
+
+    /**
+     * Picks the columns S of T = VᵀAV forming an invertible submatrix, preferring those left out
+     * last time, and writes S (ST Sᵀ)⁻¹ Sᵀ to w. Returns |S| (its columns are s[0..|S|)), or 0
+     * if T is singular where it must not be.
+     */
+    private static int nonsingularSub(long[] t, int[] s, int[] lastS, int lastDim, long[] w) {
+        long[][] m = new long[64][2];
+        for (int i = 0; i < 64; i++) {
+            m[i][0] = t[i];
+            m[i][1] = 1L << i;
+        }
+        long mask = 0;
+        for (int i = 0; i < lastDim; i++) {
+            mask |= 1L << lastS[i];
+            s[63 - i] = lastS[i];
+        }
+        for (int i = 0, j = 0; i < 64; i++) if ((mask & 1L << i) == 0) s[j++] = i;
+
+        int dim = 0;
+        for (int i = 0; i < 64; i++) {
+            long bit = 1L << s[i];
+            long[] ri = m[s[i]];
+            int j = i;
+            for (; j < 64; j++) {
+                if ((m[s[j]][0] & bit) != 0) { swap(ri, m[s[j]]); break; }
+            }
+            if (j < 64) {
+                for (int k = 0; k < 64; k++) {
+                    long[] rk = m[s[k]];
+                    if (rk != ri && (rk[0] & bit) != 0) { rk[0] ^= ri[0]; rk[1] ^= ri[1]; }
+                }
+                s[dim++] = s[i];
+                continue;
+            }
+            for (j = i; j < 64; j++) {
+                if ((m[s[j]][1] & bit) != 0) { swap(ri, m[s[j]]); break; }
+            }
+            if (j == 64) return 0;
+            for (int k = 0; k < 64; k++) {
+                long[] rk = m[s[k]];
+                if (rk != ri && (rk[1] & bit) != 0) { rk[0] ^= ri[0]; rk[1] ^= ri[1]; }
+            }
+            ri[0] = ri[1] = 0;
+        }
+        for (int i = 0; i < 64; i++) w[i] = m[i][1];
+        return dim;
+    }
+
+    private static void swap(long[] a, long[] b) {
+        long t0 = a[0], t1 = a[1];
+        a[0] = b[0]; a[1] = b[1];
+        b[0] = t0; b[1] = t1;
+    }
+}
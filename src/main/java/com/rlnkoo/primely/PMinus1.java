@@ -0,0 +1,118 @@
+package com.rlnkoo.primely;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Pollard p−1 behind {@link Factorizer#pollardPMinus1}, in {@link MontgomeryContext} form.
+ *
+ * Stage 1 raises a = 3 to E = Π p^⌊log_p B1⌋ over the primes p ≤ B1, several prime powers per
+ * word-sized exponent, and takes gcd(a − 1, n) only every {@value #CHECK} primes (base 2 would
+ * have tiny order modulo Mersenne and Fermat factors). If a
+ * checkpoint jumps straight to n (every prime of n was caught at once), the stretch since the
+ * previous checkpoint is replayed one prime power at a time.
+ *
+ * Stage 2 catches a single extra prime q in (B1, B2]: it walks x = a^q from prime to prime,
+ * multiplying by a^(q' − q) from a table of small even gaps, and accumulates Π (x − 1) for a
+ * gcd every {@value #CHECK} primes.
+ */
+final class PMinus1 {
+    private static final int CHECK = 1 << 10;
+
+    private PMinus1() {}
+
+    /**
+     * A proper factor of odd n, 1 if p−1 with these bounds finds none, or null once {@code stop}
+     * reports true (checked at every gcd checkpoint).
+     */
+    static BigInteger factor(BigInteger n, int b1, long b2, BooleanSupplier stop) {
+        if (b1 < 2) throw new IllegalArgumentException("B1 must be >= 2");
+        if (!n.testBit(0)) return BigInteger.TWO;
+        MontgomeryContext mc = new MontgomeryContext(n);
+        long[] a = mc.toMont(BigInteger.valueOf(3)), saved = mc.alloc(), one = mc.alloc(), t = mc.alloc();
+        mc.setOne(one);
+
+        int[] primes = PrimeTable.table(b1);
+        int np = PrimeTable.count(primes, b1);
+        int from = 0;
+        mc.copy(a, saved);
+        while (from < np) {
+            if (stop.getAsBoolean()) return null;
+            int to = Math.min(np, from + CHECK);
+            long e = 1;
+            for (int i = from; i < to; i++) {
+                long pe = primePower(primes[i], b1);
+                if (e > Long.MAX_VALUE / pe) {
+                    mc.pow(a, e, a);
+                    e = 1;
+                }
+                e *= pe;
+            }
+            mc.pow(a, e, a);
+            BigInteger g = gcdMinusOne(mc, a, one, t, n);
+            if (g.equals(n)) {
+                mc.copy(saved, a);                  // replay [from, to) one prime power at a time
+                for (int i = from; i < to; i++) {
+                    mc.pow(a, primePower(primes[i], b1), a);
+                    g = gcdMinusOne(mc, a, one, t, n);
+                    if (!g.equals(BigInteger.ONE)) return g.equals(n) ? BigInteger.ONE : g;
+                }
+            }
+            if (!g.equals(BigInteger.ONE)) return g;
+            mc.copy(a, saved);
+            from = to;
+        }
+        return b2 > b1 ? stage2(mc, a, b1, b2, n, stop) : BigInteger.ONE;
+    }
+
+    /** p^k for the largest k with p^k ≤ b. */
+    private static long primePower(long p, long b) {
+        long pe = p;
+        while (pe <= b / p) pe *= p;
+        return pe;
+    }
+
+    private static BigInteger gcdMinusOne(MontgomeryContext mc, long[] a, long[] one, long[] t, BigInteger n) {
+        mc.sub(a, one, t);
+        return mc.raw(t).gcd(n);
+    }
+
+    private static BigInteger stage2(MontgomeryContext mc, long[] a, int b1, long b2, BigInteger n, BooleanSupplier stop) {
+        long[][] gaps = new long[64][];             // gaps[j] = a^(2j), filled on demand
+        long[] a2 = mc.alloc();
+        mc.mul(a, a, a2);
+        gaps[1] = a2;
+        long[] x = mc.alloc(), prod = mc.alloc(), one = mc.alloc(), t = mc.alloc();
+        mc.setOne(one);
+        mc.setOne(prod);
+
+        PrimitiveIterator.OfLong it = Sieve.primesBetween(b1 + 1L, b2 + 1).iterator();
+        if (!it.hasNext()) return BigInteger.ONE;
+        long q = it.nextLong();
+        mc.pow(a, q, x);
+        mc.sub(x, one, t);
+        mc.mul(prod, t, prod);
+        for (int k = 1; it.hasNext(); k++) {
+            long next = it.nextLong();
+            int j = (int) ((next - q) >>> 1);
+            if (j >= gaps.length) gaps = Arrays.copyOf(gaps, 2 * j);
+            if (gaps[j] == null) {
+                gaps[j] = mc.alloc();
+                mc.pow(a2, j, gaps[j]);
+            }
+            mc.mul(x, gaps[j], x);
+            mc.sub(x, one, t);
+            mc.mul(prod, t, prod);
+            q = next;
+            if ((k & (CHECK - 1)) == 0) {
+                if (stop.getAsBoolean()) return null;
+                BigInteger g = mc.raw(prod).gcd(n);
+                if (!g.equals(BigInteger.ONE)) return g.equals(n) ? BigInteger.ONE : g;
+            }
+        }
+        BigInteger g = mc.raw(prod).gcd(n);
+        return g.equals(n) ? BigInteger.ONE : g;
+    }
+}
@@ -0,0 +1,107 @@
+package com.rlnkoo.primely;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Pollard–Brent rho behind {@link Factorizer#rhoBrent}, single walks and races.
+ *
+ * A walk iterates y ← y² + c in {@link MontgomeryContext} form from a random (c, seed) and
+ * multiplies |x − y| into one product for {@code batch} steps before each gcd. When a batch
+ * collapses to n, the walk backtracks from the batch start one gcd per step. Walks with
+ * different (c, seed) are independent, so racing k of them cuts the expected time to the first
+ * factor by about k; the first factor found stops all the others at their next batch.
+ */
+final class ParallelRho {
+    private static final SecureRandom RNG = new SecureRandom();
+
+    private ParallelRho() {}
+
+    /**
+     * One walk over odd composite n: a proper factor, n if the walk collapsed (try another),
+     * or null once {@code stop} reports true.
+     */
+    static BigInteger walk(BigInteger n, int batch, BooleanSupplier stop) {
+        MontgomeryContext mc = new MontgomeryContext(n);
+        long[] y = mc.toMont(new BigInteger(n.bitLength(), RNG));
+        long[] c = mc.toMont(new BigInteger(n.bitLength(), RNG));
+        long[] x = mc.alloc(), ys = mc.alloc(), q = mc.alloc(), diff = mc.alloc();
+        mc.setOne(q);
+        BigInteger g = BigInteger.ONE;
+        long r = 1;
+
+        while (g.equals(BigInteger.ONE)) {
+            mc.copy(y, x);
+            for (long i = 0; i < r; i++) {
+                if ((i & (batch - 1)) == 0 && i > 0 && stop.getAsBoolean()) return null;
+                f(mc, y, c);
+            }
+
+            long k = 0;
+            while (k < r && g.equals(BigInteger.ONE)) {
+                if (stop.getAsBoolean()) return null;
+                mc.copy(y, ys);
+                long upper = Math.min(k + batch, r);
+                for (; k < upper; k++) {
+                    f(mc, y, c);
+                    mc.sub(x, y, diff);
+                    mc.mul(q, diff, q);
+                }
+                g = mc.raw(q).gcd(n);
+            }
+            r <<= 1;
+        }
+        if (g.equals(n)) {
+            do {
+                f(mc, ys, c);
+                mc.sub(x, ys, diff);
+                g = mc.raw(diff).gcd(n);
+            } while (g.equals(BigInteger.ONE));
+        }
+        return g;
+    }
+
+    /** y ← y² + c, all in Montgomery form. */
+    private static void f(MontgomeryContext mc, long[] y, long[] c) {
+        mc.sqr(y, y);
+        mc.add(y, c, y);
+    }
+
+    /**
+     * Races {@code threads} walks over odd composite n, each starting a fresh (c, seed) when its
+     * last one collapses; the first proper factor completes the future. Cancelling the future,
+     * or the optional timeout firing, makes every walk stop at its next batch; so does
+     * {@code stop} reporting true, which completes the future with null.
+     */
+    static CompletableFuture<BigInteger> async(BigInteger n, int threads, int batch, Duration timeout, BooleanSupplier stop) {
+        if (threads < 1) throw new IllegalArgumentException("threads must be >= 1");
+        if (Integer.bitCount(batch) != 1) throw new IllegalArgumentException("batch must be a power of two");
+        CompletableFuture<BigInteger> result = new CompletableFuture<>();
+        if (!n.testBit(0)) {
+            result.complete(BigInteger.TWO);
+            return result;
+        }
+        if (timeout != null) result.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        for (int i = 0; i < threads; i++) {
+            Thread t = new Thread(() -> {
+                try {
+                    BooleanSupplier done = () -> result.isDone() || stop.getAsBoolean();
+                    while (!result.isDone()) {
+                        if (stop.getAsBoolean()) result.complete(null);
+                        BigInteger d = walk(n, batch, done);
+                        if (d != null && !d.equals(n)) result.complete(d);
+                    }
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            }, "primely-rho-" + i);
+            t.setDaemon(true);
+            t.start();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,89 @@
+package com.rlnkoo.primely;
+
+import java.math.BigInteger;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fork/join batch primality behind {@link Primes#testAll}.
+ *
+ * Leaves cover whole 64-bit words of the result, so tasks never share a word. Inside a leaf the
+ * cheap trial-division verdicts are taken for the whole chunk first; the expensive test then
+ * walks only the survivor bits, kept in a per-thread scratch buffer.
+ */
+final class PrimalityBatch {
+    private static final int LEAF_64 = 4096;
+    private static final int LEAF_BIG = 64;
+    private static final ThreadLocal<long[]> SURVIVORS =
+            ThreadLocal.withInitial(() -> new long[LEAF_64 >>> 6]);
+
+    private PrimalityBatch() {}
+
+    static void testAll(long[] in, BitSet out) {
+        run(in.length, LEAF_64, new Stages() {
+            @Override public int verdict(int i) { return Primes.smallVerdict64(in[i]); }
+            @Override public boolean test(int i) { return Primes.millerRabin64(in[i]); }
+        }, out);
+    }
+
+    static void testAll(List<BigInteger> in, BitSet out) {
+        BigInteger[] xs = in.toArray(new BigInteger[0]);
+        run(xs.length, LEAF_BIG, new Stages() {
+            @Override public int verdict(int i) { return Primes.smallVerdict(xs[i]); }
+            @Override public boolean test(int i) { return Primes.bpswCore(xs[i]); }
+        }, out);
+    }
+
+    private static void run(int len, int leaf, Stages stages, BitSet out) {
+        long[] words = new long[(len + 63) >>> 6];
+        ForkJoinPool.commonPool().invoke(new Task(stages, words, 0, len, leaf));
+        out.clear(0, len);
+        out.or(BitSet.valueOf(words));
+    }
+
+    /** Cheap verdict (1 prime, 0 composite, -1 undecided) and expensive test for element i. */
+    private interface Stages {
+        int verdict(int i);
+        boolean test(int i);
+    }
+
+    /** Splits [lo, hi) on word boundaries. */
+    private static final class Task extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        final Stages stages;
+        final long[] words;
+        final int lo, hi, leaf;
+
+        Task(Stages stages, long[] words, int lo, int hi, int leaf) {
+            this.stages = stages; this.words = words; this.lo = lo; this.hi = hi; this.leaf = leaf;
+        }
+
+        @Override protected void compute() {
+            if (hi - lo <= leaf) { runLeaf(); return; }
+            int mid = lo + ((((hi - lo) >>> 1) + 63) & ~63);
+            invokeAll(new Task(stages, words, lo, mid, leaf), new Task(stages, words, mid, hi, leaf));
+        }
+
+        private void runLeaf() {
+            long[] pending = SURVIVORS.get();
+            int w0 = lo >>> 6, nw = ((hi - lo) + 63) >>> 6;
+            for (int w = 0; w < nw; w++) pending[w] = 0;
+
+            for (int i = lo; i < hi; i++) {
+                int v = stages.verdict(i);
+                if (v == 1) words[i >>> 6] |= 1L << i;
+                else if (v < 0) pending[(i - lo) >>> 6] |= 1L << i;
+            }
+            for (int w = 0; w < nw; w++) {
+                long bits = pending[w];
+                while (bits != 0) {
+                    int i = lo + (w << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    if (stages.test(i)) words[w0 + w] |= 1L << i;
+                }
+            }
+        }
+    }
+}
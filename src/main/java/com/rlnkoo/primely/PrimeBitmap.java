@@ -0,0 +1,364 @@
+package com.rlnkoo.primely;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent wheel-30 prime bitmap of [0, limit), memory-mapped read-only.
+ *
+ * Byte k of the bitmap stands for 30k..30k+29: bit j is set iff 30k + R[j] is prime, where
+ * R = 1, 7, 11, 13, 17, 19, 23, 29. The primes 2, 3 and 5 are implied. All values are
+ * little-endian. The file is
+ * <pre>
+ *   0  magic "PRIMEBMP"       8  version        12 block bytes (power of two)
+ *   16 limit                  24 blocks         32 data offset (page aligned)
+ *   40 index CRC32            44 header CRC32 of bytes 0..43
+ *   64 index: long[blocks + 1] primes in the blocks before b, then int[blocks] block CRC32
+ *   data offset: blocks · block bytes of bitmap, zero past the limit
+ * </pre>
+ * Opening checks the header and index only, so it costs a few page faults whatever the size;
+ * {@link #verify} checks every block. Lookups and counts read the mapping directly, so several
+ * JVMs sharing one file share one copy in the page cache. A count is an index lookup plus a
+ * popcount of at most one block.
+ *
+ * Mappings are at most 2³⁰ bytes each (Java 17 has no {@code MemorySegment}), and are released
+ * by the garbage collector rather than by {@link #close}.
+ */
+public final class PrimeBitmap implements AutoCloseable {
+    private static final long MAGIC = 0x504D42454D495250L;     // "PRIMEBMP" little-endian
+    private static final int VERSION = 1;
+    private static final int HEADER = 64;
+    private static final int PAGE = 4096;
+    private static final int DEFAULT_BLOCK = 1 << 16;
+    /** The writer sieves and writes this many bitmap bytes per task. */
+    private static final int GROUP_BYTES = 1 << 23;
+    private static final int CHUNK_SHIFT = 30;
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+    private static final int[] SMALL = {2, 3, 5};
+    private static final int[] RESIDUES = {1, 7, 11, 13, 17, 19, 23, 29};
+    /** WHEEL_BIT[r]: bit of residue r mod 30 in its byte, 0 if r shares a factor with 30. */
+    private static final byte[] WHEEL_BIT = new byte[30];
+    /** UP_TO[r]: bits of the residues ≤ r. */
+    private static final int[] UP_TO = new int[30];
+    /** OFFSET[t]: value of bit t of a bitmap word, relative to 240 times the word index. */
+    private static final int[] OFFSET = new int[64];
+
+    static {
+        for (int j = 0; j < 8; j++) WHEEL_BIT[RESIDUES[j]] = (byte) (1 << j);
+        for (int r = 0, m = 0; r < 30; r++) UP_TO[r] = m |= WHEEL_BIT[r] & 0xFF;
+        for (int t = 0; t < 64; t++) OFFSET[t] = 30 * (t >>> 3) + RESIDUES[t & 7];
+    }
+
+    private final FileChannel channel;
+    private final long limit, blocks;
+    private final int blockWords;
+    private final ByteBuffer index;
+    private final ByteBuffer[] data;
+
+    private PrimeBitmap(FileChannel channel, long limit, long blocks, int blockBytes,
+                        ByteBuffer index, ByteBuffer[] data) {
+        this.channel = channel;
+        this.limit = limit;
+        this.blocks = blocks;
+        this.blockWords = blockBytes >>> 3;
+        this.index = index;
+        this.data = data;
+    }
+
+    /** Writes the bitmap of [0, limit) to {@code file} with the default block size. */
+    public static void write(Path file, long limit) throws IOException {
+        write(file, limit, DEFAULT_BLOCK);
+    }
+
+    /**
+     * Sieves [0, limit) in parallel on the common pool and writes it to {@code file}. The file
+     * is assembled next to the target and moved into place, so readers never see it half-written.
+     * @param blockBytes bitmap bytes per indexed block, a power of two in [64, 2²³]
+     */
+    public static void write(Path file, long limit, int blockBytes) throws IOException {
+        if (limit < 1) throw new IllegalArgumentException("limit must be >= 1");
+        if (Integer.bitCount(blockBytes) != 1 || blockBytes < 64 || blockBytes > GROUP_BYTES) {
+            throw new IllegalArgumentException("blockBytes must be a power of two in [64, 2^23]");
+        }
+        long blockSpan = 30L * blockBytes;
+        long blocks = (limit + blockSpan - 1) / blockSpan;
+        if (HEADER + 12 * (blocks + 1) > Integer.MAX_VALUE) throw new IllegalArgumentException("limit too large");
+        int indexBytes = (int) (12 * blocks + 8);
+        long dataOffset = (HEADER + indexBytes + PAGE - 1) / PAGE * PAGE;
+        int groupBlocks = GROUP_BYTES / blockBytes;
+        long groups = (blocks + groupBlocks - 1) / groupBlocks;
+        long[] counts = new long[(int) blocks];
+        int[] crcs = new int[(int) blocks];
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            try {
+                LongStream.range(0, groups).parallel().forEach(g -> {
+                    long b0 = g * groupBlocks;
+                    int nb = (int) Math.min(groupBlocks, blocks - b0);
+                    byte[] bytes = new byte[nb * blockBytes];
+                    fill(bytes, b0 * blockSpan, Math.min(limit, (b0 + nb) * blockSpan));
+                    CRC32 crc = new CRC32();
+                    ByteBuffer words = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+                    for (int i = 0; i < nb; i++) {
+                        long n = 0;
+                        for (int at = i * blockBytes; at < (i + 1) * blockBytes; at += 8) {
+                            n += Long.bitCount(words.getLong(at));
+                        }
+                        crc.reset();
+                        crc.update(bytes, i * blockBytes, blockBytes);
+                        counts[(int) (b0 + i)] = n;
+                        crcs[(int) (b0 + i)] = (int) crc.getValue();
+                    }
+                    writeFully(ch, ByteBuffer.wrap(bytes), dataOffset + b0 * blockBytes);
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            ByteBuffer idx = ByteBuffer.allocate(indexBytes).order(ByteOrder.LITTLE_ENDIAN);
+            long sum = 0;
+            for (long c : counts) {
+                idx.putLong(sum);
+                sum += c;
+            }
+            idx.putLong(sum);
+            for (int c : crcs) idx.putInt(c);
+            CRC32 crc = new CRC32();
+            crc.update(idx.array());
+
+            ByteBuffer head = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+            head.putLong(MAGIC).putInt(VERSION).putInt(blockBytes).putLong(limit).putLong(blocks)
+                    .putLong(dataOffset).putInt((int) crc.getValue());
+            crc.reset();
+            crc.update(head.array(), 0, 44);
+            head.putInt((int) crc.getValue());
+
+            writeFully(ch, idx.clear(), HEADER);
+            writeFully(ch, head.clear(), 0);
+            ch.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Sets the bits of the primes in [lo, to) in {@code out}, whose byte 0 stands for lo (a multiple of 30). */
+    private static void fill(byte[] out, long lo, long to) {
+        BucketSieve sieve = new BucketSieve(lo, to, 1 << 18);
+        while (sieve.next()) {
+            long[] buf = sieve.buf;
+            int words = (sieve.bits + 63) >>> 6;
+            for (int w = 0; w < words; w++) {
+                int at = (int) (sieve.lo - lo) + 1 + (w << 7);      // chunks stay far below 2^31 numbers
+                for (long free = ~buf[w]; free != 0; free &= free - 1) {
+                    int off = at + 2 * Long.numberOfTrailingZeros(free);
+                    out[off / 30] |= WHEEL_BIT[off % 30];
+                }
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer src, long pos) {
+        try {
+            while (src.hasRemaining()) pos += ch.write(src, pos);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Maps a file written by {@link #write}. Only the header and index are checked.
+     * @throws IOException if the file is not a prime bitmap or its header or index is damaged
+     */
+    public static PrimeBitmap open(Path file) throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = ch.size();
+            if (size < HEADER) throw new IOException("not a prime bitmap: " + file);
+            ByteBuffer head = ch.map(FileChannel.MapMode.READ_ONLY, 0, HEADER).order(ByteOrder.LITTLE_ENDIAN);
+            if (head.getLong(0) != MAGIC) throw new IOException("not a prime bitmap: " + file);
+            if (head.getInt(8) != VERSION) throw new IOException("unsupported prime bitmap version " + head.getInt(8));
+            CRC32 crc = new CRC32();
+            crc.update(head.slice(0, 44));
+            if ((int) crc.getValue() != head.getInt(44)) throw new IOException("prime bitmap header checksum mismatch");
+
+            int blockBytes = head.getInt(12);
+            long limit = head.getLong(16), blocks = head.getLong(24), dataOffset = head.getLong(32);
+            long dataBytes = blocks * blockBytes;
+            if (Integer.bitCount(blockBytes) != 1 || blockBytes < 64 || blocks != (limit + 30L * blockBytes - 1) / (30L * blockBytes)) {
+                throw new IOException("inconsistent prime bitmap header: " + file);
+            }
+            if (size < dataOffset + dataBytes) throw new IOException("prime bitmap truncated: " + file);
+
+            ByteBuffer index = ch.map(FileChannel.MapMode.READ_ONLY, HEADER, 12 * blocks + 8)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            crc.reset();
+            crc.update(index.slice());
+            if ((int) crc.getValue() != head.getInt(40)) throw new IOException("prime bitmap index checksum mismatch");
+
+            ByteBuffer[] data = new ByteBuffer[(int) ((dataBytes + CHUNK_MASK) >>> CHUNK_SHIFT)];
+            for (int i = 0; i < data.length; i++) {
+                long off = (long) i << CHUNK_SHIFT;
+                data[i] = ch.map(FileChannel.MapMode.READ_ONLY, dataOffset + off, Math.min(CHUNK_MASK + 1, dataBytes - off))
+                        .order(ByteOrder.LITTLE_ENDIAN);
+            }
+            return new PrimeBitmap(ch, limit, blocks, blockBytes, index, data);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    /** Numbers covered: the bitmap answers for [0, limit). */
+    public long limit() {
+        return limit;
+    }
+
+    /** Whether n is prime; n must be below {@link #limit}. */
+    public boolean isPrime(long n) {
+        check(n);
+        if (n < 7) return n == 2 || n == 3 || n == 5;
+        long k = n / 30;
+        return (word(k >>> 3) >>> ((k & 7) << 3) & WHEEL_BIT[(int) (n - 30 * k)] & 0xFF) != 0;
+    }
+
+    /** Number of primes ≤ x, for x below {@link #limit}. */
+    public long pi(long x) {
+        if (x < 2) return 0;
+        check(x);
+        long small = x >= 5 ? 3 : x >= 3 ? 2 : 1;
+        long k = x / 30, w = k >>> 3;
+        long b = w / blockWords;
+        long n = small + index.getLong((int) (8 * b));
+        for (long i = b * blockWords; i < w; i++) n += Long.bitCount(word(i));
+        int shift = (int) (k & 7) << 3;
+        long mask = ((1L << shift) - 1) | (long) UP_TO[(int) (x - 30 * k)] << shift;
+        return n + Long.bitCount(word(w) & mask);
+    }
+
+    /** Number of primes in [from, to), with to ≤ {@link #limit}. */
+    public long countPrimes(long from, long to) {
+        if (to <= from || to <= 2) return 0;
+        return pi(to - 1) - pi(from - 1);
+    }
+
+    /** Ascending primes in [from, to), with to ≤ {@link #limit}, read straight from the mapping. */
+    public LongStream primesBetween(long from, long to) {
+        if (from < 2) from = 2;
+        if (to <= from) return LongStream.empty();
+        check(to - 1);
+        return StreamSupport.longStream(new Cursor(from, to), false);
+    }
+
+    /**
+     * Recomputes every block's checksum and prime count against the index.
+     * @throws IOException naming the first damaged block
+     */
+    public void verify() throws IOException {
+        CRC32 crc = new CRC32();
+        long crcs = 8 * (blocks + 1);
+        int blockBytes = blockWords << 3;
+        for (long b = 0; b < blocks; b++) {
+            long at = b * blockBytes, n = 0;
+            crc.reset();
+            crc.update(data[(int) (at >>> CHUNK_SHIFT)].slice((int) (at & CHUNK_MASK), blockBytes));
+            for (long i = b * blockWords; i < (b + 1) * blockWords; i++) n += Long.bitCount(word(i));
+            long expected = index.getLong((int) (8 * b + 8)) - index.getLong((int) (8 * b));
+            if ((int) crc.getValue() != index.getInt((int) (crcs + 4 * b)) || n != expected) {
+                throw new IOException("prime bitmap block " + b + " is damaged");
+            }
+        }
+    }
+
+    /** Closes the file; the mappings stay valid until they are garbage collected. */
+    @Override public void close() throws IOException {
+        channel.close();
+    }
+
+    private void check(long n) {
+        if (n >= limit) throw new IllegalArgumentException(n + " is beyond the bitmap limit " + limit);
+    }
+
+    /** Bitmap word w: bytes 8w..8w+7. Chunks hold whole words, so a word never straddles two. */
+    private long word(long w) {
+        long at = w << 3;
+        return data[(int) (at >>> CHUNK_SHIFT)].getLong((int) (at & CHUNK_MASK));
+    }
+
+    /** Ascending primes in [from, to), a bitmap word at a time. */
+    private final class Cursor implements Spliterator.OfLong {
+        private final long to, lastWord;
+        private int small;          // next of 2, 3, 5 still to report
+        private long w, free;       // word being drained and its unreported bits
+
+        Cursor(long from, long to) {
+            this.to = to;
+            this.small = from <= 2 ? 0 : from <= 3 ? 1 : from <= 5 ? 2 : 3;
+            this.w = from / 240;
+            this.lastWord = (to - 1) / 240;
+            this.free = word(w) & (-1L << bitsBelow(from - 240 * w));
+        }
+
+        /** Number of bits in a word that stand for values below v, 0 ≤ v ≤ 240. */
+        private static int bitsBelow(long v) {
+            int t = 0;
+            while (t < 64 && OFFSET[t] < v) t++;
+            return t;
+        }
+
+        @Override public boolean tryAdvance(LongConsumer action) {
+            if (small < 3) {
+                long p = SMALL[small++];
+                if (p >= to) { small = 3; w = lastWord; free = 0; return false; }
+                action.accept(p);
+                return true;
+            }
+            while (free == 0) {
+                if (w >= lastWord) return false;
+                free = word(++w);
+            }
+            long p = 240 * w + OFFSET[Long.numberOfTrailingZeros(free)];
+            if (p >= to) { free = 0; w = lastWord; return false; }
+            free &= free - 1;
+            action.accept(p);
+            return true;
+        }
+
+        @Override public void forEachRemaining(LongConsumer action) {
+            while (small < 3) if (!tryAdvance(action)) return;
+            for (; ; ) {
+                for (long base = 240 * w; free != 0; free &= free - 1) {
+                    long p = base + OFFSET[Long.numberOfTrailingZeros(free)];
+                    if (p >= to) { free = 0; w = lastWord; return; }
+                    action.accept(p);
+                }
+                if (w >= lastWord) return;
+                free = word(++w);
+            }
+        }
+
+        @Override public Spliterator.OfLong trySplit() { return null; }
+
+        @Override public long estimateSize() { return Long.MAX_VALUE; }
+
+        @Override public int characteristics() {
+            return ORDERED | SORTED | DISTINCT | NONNULL | IMMUTABLE;
+        }
+
+        @Override public Comparator<? super Long> getComparator() { return null; }
+    }
+}
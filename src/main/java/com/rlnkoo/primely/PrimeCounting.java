@@ -0,0 +1,374 @@
+package com.rlnkoo.primely;
+
+/**
+ * π(x) and p_n behind {@link Primes#pi} and {@link Primes#nthPrime}.
+ *
+ * π(x) uses the Lagarias–Miller–Odlyzko form of Meissel–Lehmer: with y ≥ ∛x and a = π(y),
+ * π(x) = φ(x, a) + a − 1 − P2(x, a). φ(x, a) is split into ordinary leaves (n ≤ y, answered
+ * from a φ(·, 7) table over 2·3·…·17) and special leaves φ(x / (p·m), b). A special leaf with
+ * value v ≤ y and v < p² needs only π(v), which is looked up; for prime m these come in runs
+ * sharing one π(v) and are summed a run at a time. The remaining, "hard" leaves, and every
+ * π(x/q) of P2, are read off a single odd-only segmented sieve of [0, x/y]. That sieve keeps
+ * one counter per 1024 bits, so a count is a few additions plus a partial popcount.
+ *
+ * p_n starts from li⁻¹(n), counts π there, and sieves the short remaining distance.
+ */
+final class PrimeCounting {
+    /** Below this a plain sieve count wins. */
+    private static final long SIEVE_LIMIT = 1L << 26;
+    /** φ(·, C) comes from a table: the first C primes are 2..17. */
+    private static final int C = 7;
+    private static final int Q = 2 * 3 * 5 * 7 * 11 * 13 * 17;
+    private static final int PHI_Q = 1 * 2 * 4 * 6 * 10 * 12 * 16;
+    private static final int SEG_BITS = 1 << 20;
+    private static final int BLOCK_SHIFT = 10;      // one counter per 1024 bits
+
+    private PrimeCounting() {}
+
+    /** Lazily built: PHI_TINY[r] = #{1 ≤ k ≤ r : gcd(k, Q) = 1}. */
+    private static final class Tiny {
+        static final int[] PHI = build();
+
+        private static int[] build() {
+            int[] t = new int[Q];
+            int c = 0;
+            for (int r = 1; r < Q; r++) {
+                if (r % 2 != 0 && r % 3 != 0 && r % 5 != 0 && r % 7 != 0
+                        && r % 11 != 0 && r % 13 != 0 && r % 17 != 0) c++;
+                t[r] = c;
+            }
+            return t;
+        }
+    }
+
+    private static long phiTiny(long v) {
+        return v / Q * PHI_Q + Tiny.PHI[(int) (v % Q)];
+    }
+
+    static long pi(long x) {
+        if (x < 2) return 0;
+        if (x < SIEVE_LIMIT) return Sieve.countPrimes(0, x + 1);
+        return new Lmo(x).run();
+    }
+
+    static long nthPrime(long n) {
+        if (n < 1) throw new IllegalArgumentException("n must be >= 1");
+        if (n < 1000) {
+            long bound = n < 6 ? 14 : (long) (n * (Math.log(n) + Math.log(Math.log(n)))) + 1;
+            return Sieve.primesBetween(2, bound).skip(n - 1).findFirst().getAsLong();
+        }
+        long x0 = (long) liInverse(n);
+        long c = pi(x0);                // primes ≤ x0
+        final long window = 1 << 24;
+        if (c >= n) {
+            for (long hi = x0 + 1; ; ) {
+                long lo = Math.max(2, hi - window);
+                long k = Sieve.countPrimes(lo, hi);
+                if (c - k < n) return Sieve.primesBetween(lo, hi).skip(n - (c - k) - 1).findFirst().getAsLong();
+                c -= k;
+                hi = lo;
+            }
+        }
+        for (long lo = x0 + 1; ; lo += window) {
+            long k = Sieve.countPrimes(lo, lo + window);
+            if (c + k >= n) return Sieve.primesBetween(lo, lo + window).skip(n - c - 1).findFirst().getAsLong();
+            c += k;
+        }
+    }
+
+    /** Logarithmic integral via Ramanujan's series. */
+    static double li(double x) {
+        double gamma = 0.5772156649015329;
+        double l = Math.log(x), sum = 0, term = 1, inner = 0;
+        for (int n = 1; n < 200; n++) {
+            term *= l / n;                              // (ln x)^n / n!
+            if ((n & 1) == 1) inner += 1.0 / n;         // Σ_{k ≤ (n−1)/2} 1/(2k+1)
+            double t = ((n & 1) == 1 ? 1 : -1) * term / Math.pow(2, n - 1) * inner;
+            sum += t;
+            if (Math.abs(t) < 1e-17 * Math.abs(sum)) break;
+        }
+        return gamma + Math.log(l) + Math.sqrt(x) * sum;
+    }
+
+    private static double liInverse(double n) {
+        double x = n * Math.log(n);
+        for (int i = 0; i < 50; i++) {
+            double step = (li(x) - n) * Math.log(x);
+            x -= step;
+            if (Math.abs(step) < 1) break;
+        }
+        return x;
+    }
+
+    /** One π(x) evaluation; all tables are sized for this x. */
+    private static final class Lmo {
+        final long x, z;
+        final int y, a;
+        final int[] primes;             // primes[1] = 2, …, primes[a + 1] = first prime above y
+        final int[] pi;                 // π(v) for v ≤ y
+        final int[] lpf;                // least prime factor for n ≤ y, lpf[1] = MAX_VALUE
+        final byte[] mu;
+
+        Lmo(long x) {
+            this.x = x;
+            double lx = Math.log(x);
+            double alpha = Math.max(1, 0.00011 * lx * lx * lx);    // y = α·∛x; measured best from 1e12 to 1e15
+            long cbrt = icbrt(x);
+            this.y = (int) Math.min(BucketSieve.isqrt(x), Math.max(cbrt, (long) (alpha * cbrt)));
+            this.z = x / y;
+
+            lpf = new int[y + 1];
+            mu = new byte[y + 1];
+            lpf[1] = Integer.MAX_VALUE;
+            mu[1] = 1;
+            for (int i = 2; i <= y; i++) {
+                if (lpf[i] != 0) continue;
+                for (int j = i; j <= y; j += i) if (lpf[j] == 0) lpf[j] = i;
+            }
+            pi = new int[y + 1];
+            int cnt = 0;
+            for (int i = 2; i <= y; i++) {
+                if (lpf[i] == i) cnt++;
+                pi[i] = cnt;
+                int q = i / lpf[i];
+                mu[i] = (byte) (q % lpf[i] == 0 ? 0 : -mu[q]);
+            }
+            a = cnt;
+            primes = new int[a + 2];
+            for (int i = 2, k = 1; i <= y; i++) if (lpf[i] == i) primes[k++] = i;
+            long nextPrime = y + 1;
+            while (!Primes.isPrimeDet64(nextPrime)) nextPrime++;
+            primes[a + 1] = (int) nextPrime;
+        }
+
+        long run() {
+            long s1 = ordinaryLeaves();
+            long[] hardLo = new long[a], hardHi = new long[a];
+            long s2 = easyLeaves(hardLo, hardHi);
+            long[] sieved = sieveLeaves(hardLo, hardHi);
+            return s1 + s2 + sieved[0] + a - 1 - sieved[1];
+        }
+
+        private long ordinaryLeaves() {
+            long s = 0;
+            for (int n = 1; n <= y; n++) {
+                if (mu[n] != 0 && lpf[n] > primes[C]) s += mu[n] * phiTiny(x / n);
+            }
+            return s;
+        }
+
+        /**
+         * Special leaves −μ(m)·φ(x/(p·m), b) for p = p_{b+1} that a π lookup answers. For each b the
+         * hard remainder is left as the m-interval (hardLo[b], hardHi[b]].
+         */
+        private long easyLeaves(long[] hardLo, long[] hardHi) {
+            long s = 0;
+            int sqrtY = (int) BucketSieve.isqrt(y);
+            for (int b = C; b < a; b++) {
+                long p = primes[b + 1];
+                long mLow = Math.max(y / p, p);
+                long limit = Math.min(y, p * p - 1);       // easy: v ≤ limit
+                long easyLo = Math.max(mLow, Math.min(x / p / (limit + 1), y));
+                hardLo[b] = mLow;
+                hardHi[b] = Math.max(mLow, easyLo);
+                if (p <= sqrtY) {
+                    for (long m = y; m > easyLo; m--) {
+                        if (mu[(int) m] == 0 || lpf[(int) m] <= p) continue;
+                        long v = x / p / m;
+                        s -= mu[(int) m] * Math.max(1, pi[(int) v] - b + 1);
+                    }
+                } else {
+                    // m is prime here. While v ≤ m, runs of m share π(v) and are summed at once;
+                    // past that (v > m) the runs are too short to be worth the extra division.
+                    long xp = x / p;
+                    int lo = pi[(int) easyLo];
+                    for (int i = a; i > lo; ) {
+                        long m = primes[i], v = xp / m;
+                        int k = pi[(int) v];
+                        long phiV = Math.max(1, k - b + 1);
+                        if (v > m) {
+                            s += phiV;
+                            i--;
+                        } else {
+                            int j = Math.max(lo, pi[(int) (xp / primes[k + 1])]);
+                            s += (i - j) * phiV;
+                            i = j;
+                        }
+                    }
+                }
+            }
+            return s;
+        }
+
+        /**
+         * Sieves [0, z] once. Returns the hard special leaves' contribution and P2(x, a).
+         */
+        private long[] sieveLeaves(long[] hardLo, long[] hardHi) {
+            int bHard = C - 1;
+            for (int b = C; b < a; b++) if (hardHi[b] > hardLo[b]) bHard = b;
+
+            // P2 needs π(x/q) for primes y < q ≤ √x, taken with x/q ascending
+            long sqrtX = BucketSieve.isqrt(x);
+            long[] qs = Sieve.primesBetween(y + 1, sqrtX + 1).toArray();
+            int qi = qs.length - 1;
+            long p2 = 0;
+            long piSqrtX = a + qs.length;
+            for (long k = a + 1; k <= piSqrtX; k++) p2 -= k - 1;
+
+            // largest hard leaf per b; once the sieve is past it, b needs no counters any more
+            long[] maxV = new long[a];
+            for (int b = C; b <= bHard; b++) {
+                if (hardHi[b] > hardLo[b]) maxV[b] = x / primes[b + 1] / (hardLo[b] + 1);
+            }
+            int bLive = bHard;
+
+            long[] phi = new long[a + 1];
+            long[] bits = new long[SEG_BITS >>> 6];
+            int[] cnt = new int[SEG_BITS >>> BLOCK_SHIFT];
+            Counter counter = new Counter(bits, cnt);
+            long s2 = 0, piLow = 0;
+            long end = z + 1;
+            for (long low = 0; low < end; low += 2L * SEG_BITS) {
+                long high = Math.min(end, low + 2L * SEG_BITS);
+                int n = SegmentedSieve.bits(low, high);
+                int words = (n + 63) >>> 6;
+                SegmentedSieve.tile(low, words, bits);
+                if ((n & 63) != 0) bits[words - 1] |= -1L << n;
+                long free = recount(bits, cnt, words);
+                while (bLive >= C && maxV[bLive] < low) bLive--;
+                int bCount = Math.max(C, bLive);
+                int bEnd = Math.max(bCount, pi[(int) Math.min(y, BucketSieve.isqrt(high - 1))]);
+
+                // counted phase: strikes keep the per-block counters current for the hard leaves
+                for (int b = C; ; b++) {
+                    if (b <= bLive && hardHi[b] > hardLo[b]) {
+                        long p = primes[b + 1];
+                        long mTop = Math.min(hardHi[b], low == 0 ? Long.MAX_VALUE : x / p / low);
+                        long mBot = Math.max(hardLo[b], x / p / high);
+                        counter.reset(low, n);
+                        if (mTop > mBot && p * p <= y) {
+                            for (long m = mTop; m > mBot; m--) {
+                                if (mu[(int) m] == 0 || lpf[(int) m] <= p) continue;
+                                s2 -= mu[(int) m] * (phi[b] + counter.upTo(x / p / m));
+                            }
+                        } else if (mTop > mBot) {
+                            for (int i = pi[(int) mTop]; i > pi[(int) mBot]; i--) {
+                                s2 += phi[b] + counter.upTo(x / p / primes[i]);
+                            }
+                        }
+                        phi[b] += free;
+                    }
+                    if (b == bCount) break;
+                    free -= cross(primes[b + 1], low, n, bits, cnt);
+                }
+                // plain phase: finish the segment for prime counting, then recount once
+                if (bEnd > bCount) {
+                    for (int b = bCount + 1; b <= bEnd; b++) crossPlain(primes[b], low, n, bits);
+                    free = recount(bits, cnt, words);
+                }
+
+                // Left free now: 1 (first segment only) and the primes above p_bEnd. The primes
+                // p_2..p_bEnd were struck too; in the first segment 2 makes up for 1.
+                long extra = removedPrimes(low, high, bEnd);
+                counter.reset(low, n);
+                for (; qi >= 0; qi--) {
+                    long w = x / qs[qi];
+                    if (w >= high) break;
+                    p2 += piLow + extra + counter.upTo(w);
+                }
+                piLow += free + extra;
+            }
+            return new long[]{s2, p2};
+        }
+
+        /** Rebuilds the per-block counters of free bits; returns their total. */
+        private static long recount(long[] bits, int[] cnt, int words) {
+            long free = 0;
+            int perBlock = 1 << (BLOCK_SHIFT - 6);
+            for (int k = 0; k * perBlock < words; k++) {
+                int c = 0;
+                for (int w = k * perBlock; w < Math.min(words, (k + 1) * perBlock); w++) c += Long.bitCount(~bits[w]);
+                cnt[k] = c;
+                free += c;
+            }
+            return free;
+        }
+
+        /** Odd primes p_2..p_bEnd lying in [low, high): the φ sieve struck them out. */
+        private long removedPrimes(long low, long high, int bEnd) {
+            if (low > y) return 0;
+            int hiIdx = Math.min(bEnd, pi[(int) Math.min(high - 1, y)]);
+            int loIdx = low <= 1 ? 1 : Math.max(1, pi[(int) low - 1]);
+            return Math.max(0, hiIdx - loIdx);
+        }
+
+        /** Strikes p and its odd multiples from the segment; returns how many were still free. */
+        private static long cross(long p, long low, int n, long[] bits, int[] cnt) {
+            long removed = 0;
+            if (p > low && p < low + 2L * n) removed += strike((int) ((p - low - 1) >>> 1), bits, cnt);
+            long m = p * p;
+            if (m <= low) m = ((low / p + 1) | 1) * p;
+            for (long k = (m - low - 1) >>> 1; k < n; k += p) removed += strike((int) k, bits, cnt);
+            return removed;
+        }
+
+        private static void crossPlain(long p, long low, int n, long[] bits) {
+            if (p > low && p < low + 2L * n) {
+                int k = (int) ((p - low - 1) >>> 1);
+                bits[k >>> 6] |= 1L << k;
+            }
+            long m = p * p;
+            if (m <= low) m = ((low / p + 1) | 1) * p;
+            for (long k = (m - low - 1) >>> 1; k < n; k += p) bits[(int) (k >>> 6)] |= 1L << k;
+        }
+
+        private static int strike(int k, long[] bits, int[] cnt) {
+            long old = bits[k >>> 6];
+            int was = (int) (~old >>> k) & 1;
+            bits[k >>> 6] = old | 1L << k;
+            cnt[k >>> BLOCK_SHIFT] -= was;
+            return was;
+        }
+
+        private static long icbrt(long x) {
+            long r = (long) Math.cbrt((double) x);
+            while (r * r * r > x) r--;
+            while ((r + 1) * (r + 1) * (r + 1) <= x) r++;
+            return r;
+        }
+    }
+
+    /** Free bits up to a value, for values ascending within one pass over a segment. */
+    private static final class Counter {
+        final long[] bits;
+        final int[] cnt;
+        long low;
+        int n, block;
+        long sum;                       // free bits in blocks [0, block)
+
+        Counter(long[] bits, int[] cnt) {
+            this.bits = bits;
+            this.cnt = cnt;
+        }
+
+        void reset(long low, int n) {
+            this.low = low;
+            this.n = n;
+            block = 0;
+            sum = 0;
+        }
+
+        /** Free odd numbers in [low, v]. */
+        long upTo(long v) {
+            long t = (v - low - 1) >> 1;
+            if (t < 0) return 0;
+            if (t >= n) t = n - 1;
+            int blk = (int) (t >>> BLOCK_SHIFT);
+            while (block < blk) sum += cnt[block++];
+            long s = sum;
+            int wt = (int) (t >>> 6);
+            for (int w = blk << (BLOCK_SHIFT - 6); w < wt; w++) s += Long.bitCount(~bits[w]);
+            return s + Long.bitCount(~bits[wt] & (-1L >>> (63 - (t & 63))));
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.rlnkoo.primely;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Immutable ascending list of primes stored as byte-sized gaps, about 1.2 bytes per prime.
+ *
+ * Gap i (the distance from prime i − 1 to prime i) takes one byte; the rare gap above 255
+ * (none below 436 273 009) is written as a 0 byte followed by the gap in two bytes. Every
+ * {@value #SKIP}th prime is also kept in a skip index together with the offset of its gap, so
+ * {@link #get} and {@link #indexOf} decode at most {@value #SKIP} gaps, and iteration decodes
+ * one gap per prime.
+ *
+ * Lists are filled straight from the segmented sieve, sized by a popcount pass, so no wider
+ * intermediate array is ever built.
+ */
+public final class PrimeList {
+    private static final int SKIP_SHIFT = 6;
+    private static final int SKIP = 1 << SKIP_SHIFT;
+    private static final PrimeList EMPTY = new PrimeList(0, new byte[0], new long[0], new int[0]);
+
+    private final int size;
+    private final byte[] gaps;      // gaps[offsets[k]] is the gap into prime k·SKIP + 1
+    private final long[] values;    // values[k] = prime k·SKIP
+    private final int[] offsets;
+
+    private PrimeList(int size, byte[] gaps, long[] values, int[] offsets) {
+        this.size = size;
+        this.gaps = gaps;
+        this.values = values;
+        this.offsets = offsets;
+    }
+
+    /** All primes ≤ n. */
+    public static PrimeList upTo(long n) {
+        return between(0, n == Long.MAX_VALUE ? n : n + 1);
+    }
+
+    /**
+     * Primes in [from, to).
+     * @throws IllegalArgumentException if the range holds more than {@code Integer.MAX_VALUE - 8} primes
+     */
+    public static PrimeList between(long from, long to) {
+        long count = Sieve.countPrimes(from, to);
+        if (count == 0) return EMPTY;
+        if (count > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("too many primes for one list: " + count);
+        Builder b = new Builder((int) count);
+        try (LongStream primes = Sieve.primesBetween(from, to)) {
+            primes.forEach(b);
+        }
+        return b.build();
+    }
+
+    /** Fills the gap array; the first prime of each skip block goes to the index instead. */
+    private static final class Builder implements LongConsumer {
+        private final int size;
+        private byte[] gaps;
+        private final long[] values;
+        private final int[] offsets;
+        private int n, pos;
+        private long last;
+
+        Builder(int size) {
+            this.size = size;
+            this.gaps = new byte[size];
+            this.values = new long[(size + SKIP - 1) >>> SKIP_SHIFT];
+            this.offsets = new int[values.length];
+        }
+
+        @Override public void accept(long p) {
+            if ((n & (SKIP - 1)) == 0) {
+                values[n >>> SKIP_SHIFT] = p;
+                offsets[n >>> SKIP_SHIFT] = pos;
+            } else {
+                long g = p - last;
+                if (g < 256) {
+                    gaps[pos++] = (byte) g;
+                } else {
+                    if (pos + 3 > gaps.length) gaps = Arrays.copyOf(gaps, gaps.length + Math.max(64, gaps.length >>> 10));
+                    gaps[pos++] = 0;
+                    gaps[pos++] = (byte) (g >>> 8);
+                    gaps[pos++] = (byte) g;
+                }
+            }
+            last = p;
+            n++;
+        }
+
+        PrimeList build() {
+            if (n != size) throw new IllegalStateException("sieve produced " + n + " primes, counted " + size);
+            return new PrimeList(size, pos == gaps.length ? gaps : Arrays.copyOf(gaps, pos), values, offsets);
+        }
+    }
+
+    /** Number of primes in the list. */
+    public int size() {
+        return size;
+    }
+
+    /** The i-th prime of the list, 0-based. */
+    public long get(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("index " + i + ", size " + size);
+        long v = values[i >>> SKIP_SHIFT];
+        int pos = offsets[i >>> SKIP_SHIFT];
+        for (int j = i & (SKIP - 1); j > 0; j--) {
+            int g = gaps[pos++] & 0xFF;
+            if (g == 0) {
+                g = (gaps[pos] & 0xFF) << 8 | gaps[pos + 1] & 0xFF;
+                pos += 2;
+            }
+            v += g;
+        }
+        return v;
+    }
+
+    /** The n-th prime of the list, 1-based; for a list starting at 2 this is p_n. */
+    public long nthPrime(long n) {
+        if (n < 1 || n > size) throw new IllegalArgumentException("n must be in [1, " + size + "]");
+        return get((int) (n - 1));
+    }
+
+    /** Index of p in the list, or −1 if it is not there. */
+    public int indexOf(long p) {
+        int k = Arrays.binarySearch(values, p);
+        if (k >= 0) return k << SKIP_SHIFT;
+        k = -k - 2;                             // last block starting below p
+        if (k < 0) return -1;
+        long v = values[k];
+        int pos = offsets[k];
+        int end = Math.min(size, (k + 1) << SKIP_SHIFT);
+        for (int i = (k << SKIP_SHIFT) + 1; i < end; i++) {
+            int g = gaps[pos++] & 0xFF;
+            if (g == 0) {
+                g = (gaps[pos] & 0xFF) << 8 | gaps[pos + 1] & 0xFF;
+                pos += 2;
+            }
+            v += g;
+            if (v >= p) return v == p ? i : -1;
+        }
+        return -1;
+    }
+
+    /** Whether p is in the list. */
+    public boolean contains(long p) {
+        return indexOf(p) >= 0;
+    }
+
+    /** The primes in ascending order; splits along the skip index for parallel streams. */
+    public LongStream stream() {
+        return StreamSupport.longStream(new Cursor(0, size), false);
+    }
+
+    /** Calls {@code action} for every prime, ascending. */
+    public void forEach(LongConsumer action) {
+        new Cursor(0, size).forEachRemaining(action);
+    }
+
+    /** Primes [from, end) of the list, decoded one gap at a time. */
+    private final class Cursor implements Spliterator.OfLong {
+        private int i, pos;
+        private final int end;
+        private long v;
+
+        Cursor(int from, int end) {
+            this.i = from;
+            this.end = end;
+        }
+
+        @Override public boolean tryAdvance(LongConsumer action) {
+            if (i >= end) return false;
+            action.accept(next());
+            return true;
+        }
+
+        @Override public void forEachRemaining(LongConsumer action) {
+            while (i < end) action.accept(next());
+        }
+
+        private long next() {
+            if ((i & (SKIP - 1)) == 0) {
+                v = values[i >>> SKIP_SHIFT];
+                pos = offsets[i >>> SKIP_SHIFT];
+            } else {
+                int g = gaps[pos++] & 0xFF;
+                if (g == 0) {
+                    g = (gaps[pos] & 0xFF) << 8 | gaps[pos + 1] & 0xFF;
+                    pos += 2;
+                }
+                v += g;
+            }
+            i++;
+            return v;
+        }
+
+        /** Hands off the first half, cut at a skip block, as long as this cursor sits on a block start. */
+        @Override public Spliterator.OfLong trySplit() {
+            if ((i & (SKIP - 1)) != 0) return null;
+            int mid = ((i + end) >>> 1) & -SKIP;
+            if (mid <= i) return null;
+            Cursor head = new Cursor(i, mid);
+            i = mid;
+            return head;
+        }
+
+        @Override public long estimateSize() { return end - i; }
+
+        @Override public int characteristics() {
+            return ORDERED | SORTED | DISTINCT | NONNULL | IMMUTABLE | SIZED | SUBSIZED;
+        }
+
+        @Override public Comparator<? super Long> getComparator() { return null; }
+    }
+}
@@ -0,0 +1,107 @@
+package com.rlnkoo.primely;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared, lazily grown table of small primes with cached BigInteger constants and primorials.
+ *
+ * Readers work on an immutable snapshot; a request beyond the current bound re-sieves (under a
+ * lock) to at least twice the old bound, so repeated growth stays amortized.
+ */
+public final class PrimeTable {
+    private static final int INITIAL_LIMIT = 1 << 16;
+    /** Primes below 10 000 get a shared BigInteger instance. */
+    private static final int BIG_LIMIT = 10_000;
+
+    private record Snapshot(int limit, int[] primes) {}
+
+    private static volatile Snapshot snapshot = new Snapshot(INITIAL_LIMIT, sieve(INITIAL_LIMIT));
+    private static final BigInteger[] BIG;
+    private static final ConcurrentHashMap<Integer, BigInteger> PRIMORIALS = new ConcurrentHashMap<>();
+
+    static {
+        int[] ps = snapshot.primes;
+        BIG = new BigInteger[count(ps, BIG_LIMIT)];
+        for (int i = 0; i < BIG.length; i++) BIG[i] = BigInteger.valueOf(ps[i]);
+    }
+
+    private PrimeTable() {}
+
+    /** All primes ≤ n, as a fresh array the caller may keep. */
+    public static int[] primesUpTo(int n) {
+        int[] ps = table(n);
+        return Arrays.copyOf(ps, count(ps, n));
+    }
+
+    /** Number of primes ≤ n. */
+    public static int count(int n) {
+        return count(table(n), n);
+    }
+
+    /** Product of all primes ≤ n (cached per bound). */
+    public static BigInteger primorial(int n) {
+        return PRIMORIALS.computeIfAbsent(n, k -> {
+            int[] ps = table(k);
+            return product(ps, 0, count(ps, k));
+        });
+    }
+
+    /**
+     * Shared ascending array that contains at least every prime ≤ n (possibly more).
+     * Callers must not modify it and should stop at the first prime above their bound.
+     */
+    static int[] table(int n) {
+        Snapshot s = snapshot;
+        return n <= s.limit ? s.primes : grow(n).primes;
+    }
+
+    /** Cached BigInteger for {@code table(..)[i]}. */
+    static BigInteger big(int i) {
+        return i < BIG.length ? BIG[i] : BigInteger.valueOf(snapshot.primes[i]);
+    }
+
+    /** Index of the first prime > n in {@code ps}, i.e. the number of primes ≤ n it holds. */
+    static int count(int[] ps, int n) {
+        int i = Arrays.binarySearch(ps, n);
+        return i >= 0 ? i + 1 : -i - 1;
+    }
+
+    private static synchronized Snapshot grow(int n) {
+        Snapshot s = snapshot;
+        if (n <= s.limit) return s;
+        int limit = (int) Math.min(Integer.MAX_VALUE - 1L, Math.max(n, 2L * s.limit));
+        s = new Snapshot(limit, sieve(limit));
+        snapshot = s;
+        return s;
+    }
+
+    private static BigInteger product(int[] ps, int from, int to) {
+        if (to - from <= 8) {
+            BigInteger r = BigInteger.ONE;
+            for (int i = from; i < to; i++) r = r.multiply(BigInteger.valueOf(ps[i]));
+            return r;
+        }
+        int mid = (from + to) >>> 1;
+        return product(ps, from, mid).multiply(product(ps, mid, to));
+    }
+
+    /** Odd-only bit sieve: bit i stands for 2i+1. */
+    private static int[] sieve(int n) {
+        if (n < 2) return new int[0];
+        int bits = (n - 1) / 2 + 1;
+        long[] composite = new long[(bits + 63) >>> 6];
+        for (long i = 3; i * i <= n; i += 2) {
+            if ((composite[(int) (i >>> 7)] & (1L << (i >>> 1))) != 0) continue;
+            for (long j = i * i; j <= n; j += 2 * i) composite[(int) (j >>> 7)] |= 1L << (j >>> 1);
+        }
+        int[] r = new int[(int) (1.26 * n / Math.log(Math.max(n, 3))) + 2];
+        int k = 0;
+        r[k++] = 2;
+        for (int i = 1; i < bits; i++) {
+            if ((composite[i >>> 6] & (1L << i)) == 0) r[k++] = 2 * i + 1;
+        }
+        return Arrays.copyOf(r, k);
+    }
+}
@@ -2,61 +2,124 @@ package com.rlnkoo.primely;
 
 import java.math.BigInteger;
 import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /** High-level prime utilities: tests (MR64, BPSW), next/random/safe primes, and proof APIs. */
 public final class Primes {
 
     private Primes() {}
 
-    private static final long[] BASES64 = {2, 3, 5, 7, 11, 13, 17};
+    private static final long[] SMALL64 = {2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37};
+    /** Sinclair's seven bases: deterministic for every n < 2^64. */
+    private static final long[] BASES64 = {2, 325, 9375, 28178, 450775, 9780504, 1795265022L};
+    /** Forišek–Jančina hashed bases: a single round with BASES32[hash32(n)] decides every n < 2^32. */
+    private static final int[] BASES32 = {
+            15591, 2018, 166, 7429, 8064, 16045, 10503, 4399, 1949, 1295, 2776, 3620, 560, 3128, 5212, 2657,
+            2300, 2021, 4652, 1471, 9336, 4018, 2398, 20462, 10277, 8028, 2213, 6219, 620, 3763, 4852, 5012,
+            3185, 1333, 6227, 5298, 1074, 2391, 5113, 7061, 803, 1269, 3875, 422, 751, 580, 4729, 10239,
+            746, 2951, 556, 2206, 3778, 481, 1522, 3476, 481, 2487, 3266, 5633, 488, 3373, 6441, 3344,
+            17, 15105, 1490, 4154, 2036, 1882, 1813, 467, 3307, 14042, 6371, 658, 1005, 903, 737, 1887,
+            7447, 1888, 2848, 1784, 7559, 3400, 951, 13969, 4304, 177, 41, 19875, 3110, 13221, 8726, 571,
+            7043, 6943, 1199, 352, 6435, 165, 1169, 3315, 978, 233, 3003, 2562, 2994, 10587, 10030, 2377,
+            1902, 5354, 4447, 1555, 263, 27027, 2283, 305, 669, 1912, 601, 6186, 429, 1930, 14873, 1784,
+            1661, 524, 3577, 236, 2360, 6146, 2850, 55637, 1753, 4178, 8466, 222, 2579, 2743, 2031, 2226,
+            2276, 374, 2132, 813, 23788, 1610, 4422, 5159, 1725, 3597, 3366, 14336, 579, 165, 1375, 10018,
+            12616, 9816, 1371, 536, 1867, 10864, 857, 2206, 5788, 434, 8085, 17618, 727, 3639, 1595, 4944,
+            2129, 2029, 8195, 8344, 6232, 9183, 8126, 1870, 3296, 7455, 8947, 25017, 541, 19115, 368, 566,
+            5674, 411, 522, 1027, 8215, 2050, 6544, 10049, 614, 774, 2333, 3007, 35201, 4706, 1152, 1785,
+            1028, 1540, 3743, 493, 4474, 2521, 26845, 8354, 864, 18915, 5465, 2447, 42, 4511, 1660, 166,
+            1249, 6259, 2553, 304, 272, 7286, 73, 6554, 899, 2816, 5197, 13330, 7054, 2818, 3199, 811,
+            922, 350, 7514, 4452, 3449, 2663, 4708, 418, 1621, 1171, 3471, 88, 11345, 412, 1559, 194
+    };
     private static final SecureRandom RNG = new SecureRandom();
 
-    // Deterministic Miller–Rabin for 64-bit
+    /**
+     * Deterministic Miller–Rabin for 64-bit. Pure {@code long} Montgomery arithmetic, no allocation:
+     * one hashed base below 2^32, Sinclair's seven bases above.
+     */
     public static boolean isPrimeDet64(long n) {
-        if (n < 2) return false;
-        for (long p : new long[]{2,3,5,7,11,13,17,19,23,29,31}) {
-            if (n == p) return true;
-            if (n % p == 0) return false;
+        int v = smallVerdict64(n);
+        return v < 0 ? millerRabin64(n) : v == 1;
+    }
+
+    /** Cheap stage of {@link #isPrimeDet64}: 1 prime, 0 composite, -1 undecided (odd, no factor ≤ 37). */
+    static int smallVerdict64(long n) {
+        if (n < 2) return 0;
+        for (long p : SMALL64) {
+            if (n == p) return 1;
+            if (n % p == 0) return 0;
         }
+        return n < 37 * 37 ? 1 : -1;
+    }
+
+    /** Expensive stage of {@link #isPrimeDet64}, for n that passed {@link #smallVerdict64}. */
+    static boolean millerRabin64(long n) {
+        long nInv = Montgomery64.inverse(n), one = Montgomery64.one(n), r2 = Montgomery64.r2(n);
         long d = n - 1;
         int s = Long.numberOfTrailingZeros(d);
         d >>= s;
+        if (n < 1L << 32)
+            return Montgomery64.strongProbablePrime(n, nInv, one, r2, BASES32[hash32(n)], d, s);
         for (long a : BASES64) {
-            if (a % n == 0) return true;
-            if (!mr64(n, a, d, s)) return false;
+            if (!Montgomery64.strongProbablePrime(n, nInv, one, r2, a, d, s)) return false;
         }
         return true;
     }
 
-    private static boolean mr64(long n, long a, long d, int s) {
-        BigInteger N = BigInteger.valueOf(n), A = BigInteger.valueOf(a);
-        BigInteger x = A.modPow(BigInteger.valueOf(d), N);
-        if (x.equals(BigInteger.ONE) || x.equals(N.subtract(BigInteger.ONE))) return true;
-        for (int r = 1; r < s; r++) {
-            x = x.multiply(x).mod(N);
-            if (x.equals(N.subtract(BigInteger.ONE))) return true;
-        }
-        return false;
+    private static int hash32(long x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3bL;
+        x = ((x >>> 16) ^ x) * 0x45d9f3bL;
+        return (int) (((x >>> 16) ^ x) & 255);
     }
 
     // Baillie–PSW for arbitrary precision
     public static boolean isPrimeBPSW(BigInteger n) {
+        int v = smallVerdict(n);
+        return v < 0 ? bpswCore(n) : v == 1;
+    }
+
+    /** Cheap stage of {@link #isPrimeBPSW}: 1 prime, 0 composite, -1 undecided (no small factor). */
+    static int smallVerdict(BigInteger n) {
         Objects.requireNonNull(n);
-        if (n.signum() <= 0) return false;
-        if (n.compareTo(BigInteger.TWO) < 0) return false;
+        if (n.compareTo(BigInteger.TWO) < 0) return 0;
+        if (n.bitLength() < 64) return smallVerdict64(n.longValue());
+        return TrialDivision.hasSmallFactor(n, trialBound(n.bitLength())) ? 0 : -1;
+    }
 
-        for (int p : Factorizer.smallPrimesUpTo(1000)) {
-            if (n.equals(BigInteger.valueOf(p))) return true;
-            if (n.mod(BigInteger.valueOf(p)).equals(BigInteger.ZERO)) return false;
-        }
+    /** Trial-division bound for BPSW: larger inputs make each avoided test dearer, so sieve deeper. */
+    static int trialBound(int bits) {
+        return Math.min(1 << 14, Math.max(1000, bits * 4));
+    }
+
+    /**
+     * Expensive stage of {@link #isPrimeBPSW}, for n that passed {@link #smallVerdict}.
+     * Values below 2^63 take the deterministic 64-bit path instead.
+     */
+    static boolean bpswCore(BigInteger n) {
+        if (n.bitLength() < 64) return millerRabin64(n.longValue());
         if (isSquare(n)) return false;
 
         if (!mrBase2(n)) return false;
         return strongLucasSelfridge(n);
     }
 
+    /**
+     * Strong probable-prime test to base 2. The exponentiation stays on BigInteger.modPow: the JDK
+     * runs it as an intrinsified Montgomery ladder, which beats portable limb code several-fold.
+     */
     static boolean mrBase2(BigInteger n) {
         BigInteger nm1 = n.subtract(BigInteger.ONE);
         int s = nm1.getLowestSetBit();
@@ -70,66 +133,55 @@ public final class Primes {
         return false;
     }
 
-    /** Strong Lucas probable prime test with Selfridge parameters (used in BPSW). */
     static boolean strongLucasSelfridge(BigInteger n) {
+        return strongLucasSelfridge(new MontgomeryContext(n));
+    }
+
+    /** Strong Lucas probable prime test with Selfridge parameters (used in BPSW). */
+    static boolean strongLucasSelfridge(MontgomeryContext mc) {
+        BigInteger n = mc.modulus();
         long D = 5; int sign = 1;
         while (true) {
             BigInteger bigD = BigInteger.valueOf(sign * D);
             int j = jacobi(bigD, n);
             if (j == -1) break;
+            if (j == 0 && bigD.abs().compareTo(n) < 0) return false;
             D += 2; sign = -sign;
         }
         long dSigned = sign * D;
 
-        BigInteger P = BigInteger.ONE;
-        BigInteger Q = BigInteger.valueOf((1 - dSigned) / 4);
-        BigInteger Dbi = P.multiply(P).subtract(Q.shiftLeft(2));
+        long[] P = mc.toMont(BigInteger.ONE);
+        long[] Q = mc.toMont(BigInteger.valueOf((1 - dSigned) / 4));
+        long[] Dm = mc.toMont(BigInteger.valueOf(dSigned));
 
         BigInteger nPlus1 = n.add(BigInteger.ONE);
         int s = nPlus1.getLowestSetBit();
         BigInteger d = nPlus1.shiftRight(s);
 
-        BigInteger[] UV = lucasUV_binary(n, P, Q, Dbi, d);
-        BigInteger U = UV[0], V = UV[1];
+        long[] U = mc.alloc(), V = mc.alloc(), Qk = mc.alloc(), t = mc.alloc();
+        mc.lucas(P, Q, Dm, d, U, V, Qk);
 
-        if (U.signum() == 0 || V.signum() == 0) return true;
+        if (mc.isZero(U) || mc.isZero(V)) return true;
 
-        BigInteger Qk = Q.mod(n);
         for (int r = 1; r < s; r++) {
-            V = V.multiply(V).subtract(Qk.shiftLeft(1)).mod(n);
-            if (V.signum() == 0) return true;
-            Qk = Qk.multiply(Qk).mod(n);
+            mc.sqr(V, V);
+            mc.dbl(Qk, t);
+            mc.sub(V, t, V);                // V_{2m} = V_m² − 2Q^m
+            if (mc.isZero(V)) return true;
+            mc.sqr(Qk, Qk);
         }
         return false;
     }
 
     /**
      * Compute (U_k, V_k) modulo n for Lucas sequences with parameters (P, Q) using
-     * the standard binary method that includes division by 2 modulo n.
+     * the standard binary method that includes division by 2 modulo n (n odd).
      */
     static BigInteger[] lucasUV_binary(BigInteger n, BigInteger P, BigInteger Q, BigInteger D, BigInteger k) {
-        BigInteger U = BigInteger.ZERO;
-        BigInteger V = BigInteger.TWO;
-        BigInteger Qk = BigInteger.ONE;
-        BigInteger inv2 = n.add(BigInteger.ONE).shiftRight(1);
-
-        for (int i = k.bitLength() - 1; i >= 0; i--) {
-            BigInteger U2 = U.multiply(V).mod(n);
-            BigInteger V2 = V.multiply(V).subtract(Qk.shiftLeft(1)).mod(n);
-            U = U2; V = V2; Qk = Qk.multiply(Qk).mod(n);
-
-            if (k.testBit(i)) {
-                BigInteger U1 = P.multiply(U).add(V).mod(n);
-                U1 = U1.multiply(inv2).mod(n);
-
-                BigInteger V1 = D.multiply(U).add(P.multiply(V)).mod(n);
-                V1 = V1.multiply(inv2).mod(n);
-
-                U = U1; V = V1;
-                Qk = Qk.multiply(Q).mod(n);
-            }
-        }
-        return new BigInteger[]{U, V};
+        MontgomeryContext mc = new MontgomeryContext(n);
+        long[] U = mc.alloc(), V = mc.alloc(), Qk = mc.alloc();
+        mc.lucas(mc.toMont(P), mc.toMont(Q), mc.toMont(D), k, U, V, Qk);
+        return new BigInteger[]{mc.fromMont(U), mc.fromMont(V)};
     }
 
     /** Jacobi symbol (a/n) with n odd and positive. Robust for big n (no int overflow). */
@@ -178,34 +230,117 @@ public final class Primes {
         }
     }
 
+    // Counting
+
+    /** π(x): number of primes ≤ x, by Lagarias–Miller–Odlyzko combinatorial counting. */
+    public static long pi(long x) {
+        return PrimeCounting.pi(x);
+    }
+
+    /** The n-th prime (nthPrime(1) = 2): π is evaluated near li⁻¹(n) and the rest is sieved. */
+    public static long nthPrime(long n) {
+        return PrimeCounting.nthPrime(n);
+    }
+
     // Next / random / safe primes
     public static BigInteger nextPrime(BigInteger n) {
         if (n == null) throw new NullPointerException();
-        if (n.compareTo(BigInteger.TWO) <= 0) return BigInteger.TWO;
-        BigInteger p = n.testBit(0) ? n : n.add(BigInteger.ONE);
-        while (true) {
-            if (isPrimeBPSW(p)) return p;
-            p = p.add(BigInteger.TWO);
-        }
+        return primesFrom(n).iterator().next();
+    }
+
+    /**
+     * Probable primes ≥ start in ascending order, without end. Candidates come from an incremental
+     * sieve (residues of start are computed once), so BPSW only runs on numbers free of small factors.
+     */
+    public static Stream<BigInteger> primesFrom(BigInteger start) {
+        Objects.requireNonNull(start);
+        Iterator<BigInteger> it = new Iterator<>() {
+            boolean two = start.compareTo(BigInteger.TWO) <= 0;
+            final CandidateSieve sieve = new CandidateSieve(start.max(BigInteger.valueOf(3)),
+                    CandidateSieve.defaultBound(start.bitLength()), CandidateSieve.DEFAULT_WINDOW);
+
+            @Override public boolean hasNext() { return true; }
+
+            @Override public BigInteger next() {
+                if (two) { two = false; return BigInteger.TWO; }
+                while (true) {
+                    BigInteger c = sieve.next();
+                    if (isSieved(c)) return c;
+                }
+            }
+        };
+        int ch = Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL;
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(it, ch), false);
+    }
+
+    /** BPSW for a sieve survivor: trial division already happened, unless c is small. */
+    static boolean isSieved(BigInteger c) {
+        return c.bitLength() < 64 ? isPrimeBPSW(c) : bpswCore(c);
     }
 
-    /** Random probable prime with given bit length (BPSW tested). */
+    /**
+     * Random probable prime with given bit length (BPSW tested). A random odd start is sieved
+     * forward; only when the search runs past the bit length is a fresh start drawn.
+     */
     public static BigInteger randomPrime(int bits) {
+        int bound = CandidateSieve.defaultBound(bits);
         while (true) {
-            BigInteger c = new BigInteger(bits, RNG).setBit(bits - 1).setBit(0);
-            if (isPrimeBPSW(c)) return c;
+            BigInteger start = new BigInteger(bits, RNG).setBit(bits - 1).setBit(0);
+            CandidateSieve sieve = new CandidateSieve(start, bound, CandidateSieve.DEFAULT_WINDOW);
+            for (BigInteger c = sieve.next(); c.bitLength() == bits; c = sieve.next()) {
+                if (isSieved(c)) return c;
+            }
         }
     }
 
-    /** Random safe prime p where q=(p-1)/2 is also prime. */
+    /**
+     * Random safe prime p where q=(p-1)/2 is also prime. q and 2q+1 are sieved jointly, p gets a
+     * base-2 Fermat test, and only the rare survivor pays for BPSW on q.
+     */
     public static BigInteger randomSafePrime(int bits) {
-        while (true) {
-            BigInteger q = randomPrime(bits - 1);
-            BigInteger p = q.shiftLeft(1).add(BigInteger.ONE);
-            if (isPrimeBPSW(p)) return p;
+        return SafePrimeSearch.search(bits, () -> false);
+    }
+
+    /**
+     * {@link #randomSafePrime(int)} raced across {@code threads} worker threads. Cancelling the
+     * returned future stops the workers; with a non-null {@code timeout} it completes with a
+     * {@link java.util.concurrent.TimeoutException} once the deadline passes.
+     */
+    public static CompletableFuture<BigInteger> randomSafePrimeAsync(int bits, int threads, Duration timeout) {
+        return SafePrimeSearch.async(bits, threads, timeout);
+    }
+
+    /** Blocking form of {@link #randomSafePrimeAsync}: empty if the timeout expired first. */
+    public static Optional<BigInteger> randomSafePrime(int bits, int threads, Duration timeout) {
+        try {
+            return Optional.of(randomSafePrimeAsync(bits, threads, timeout).join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) return Optional.empty();
+            throw e;
         }
     }
 
+    // Batch API
+
+    /**
+     * Sets bit i of {@code out} iff {@code in[i]} is prime (bits past {@code in.length} are untouched).
+     * Work is split across the common fork/join pool; each chunk runs trial division first and
+     * Miller–Rabin only on the survivors.
+     */
+    public static void testAll(long[] in, BitSet out) {
+        PrimalityBatch.testAll(in, out);
+    }
+
+    /** {@link #testAll(long[], BitSet)} for big integers, using BPSW on the survivors. */
+    public static void testAll(List<BigInteger> in, BitSet out) {
+        PrimalityBatch.testAll(in, out);
+    }
+
+    /** Keeps the primes of {@code values}; runs in parallel when the stream is parallel. */
+    public static LongStream filterPrimes(LongStream values) {
+        return values.filter(Primes::isPrimeDet64);
+    }
+
     // Proofs API
     public static Optional<Proofs.PrimeCertificate> provePratt(BigInteger n) {
         return Proofs.provePratt(n).map(pc -> pc);
@@ -1,98 +1,395 @@
 package com.rlnkoo.primely;
 
 import java.math.BigInteger;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 
-/** Simple primality certificates: Pratt and Pocklington (best-effort). */
+/** Primality certificates: recursive Pratt trees, Pocklington and Brillhart–Lehmer–Selfridge n∓1 proofs. */
 public final class Proofs {
 
-    public sealed interface PrimeCertificate permits PrattCert, PocklingtonCert {
+    public sealed interface PrimeCertificate permits PrattCert, PocklingtonCert, BlsCert {
+        /** The number proven prime. */
+        BigInteger n();
+
         String pretty();
+
+        /** Re-checks the certificate from scratch; true iff it proves n prime. */
+        boolean verify();
     }
 
-    /** Minimal Pratt certificate carrying the base list used for n (requires full factorization of n-1). */
-    public record PrattCert(BigInteger n, Map<BigInteger, List<BigInteger>> tree) implements PrimeCertificate {
+    /**
+     * Pratt certificate tree: a witness a of order n−1 modulo n, the factorization of n−1 and a
+     * sub-certificate for each of its primes (in ascending order). Primes below 2³² are leaves
+     * (a = 0, no factors), checked by deterministic Miller–Rabin. Sub-certificates for the same
+     * prime are shared, so the tree is really a DAG.
+     */
+    public record PrattCert(BigInteger n, BigInteger a, Map<BigInteger,Integer> factors, List<PrattCert> children)
+            implements PrimeCertificate {
+
+        public boolean isLeaf() {
+            return factors.isEmpty();
+        }
+
         @Override public String pretty() {
             StringBuilder sb = new StringBuilder("Pratt certificate for ").append(n).append('\n');
-            for (var e : tree.entrySet())
-                sb.append("  p=").append(e.getKey()).append(" via bases ").append(e.getValue()).append('\n');
+            pretty(sb, 1, new HashSet<>());
             return sb.toString();
         }
+
+        private void pretty(StringBuilder sb, int depth, Set<BigInteger> seen) {
+            sb.append("  ".repeat(depth)).append(n);
+            if (isLeaf()) {
+                sb.append(" (deterministic Miller–Rabin)\n");
+            } else if (!seen.add(n)) {
+                sb.append(" (see above)\n");
+            } else {
+                StringJoiner f = new StringJoiner(" · ");
+                factors.forEach((q, e) -> f.add(e == 1 ? q.toString() : q + "^" + e));
+                sb.append(" via a=").append(a).append(", n−1 = ").append(f).append('\n');
+                for (PrattCert c : children) c.pretty(sb, depth + 1, seen);
+            }
+        }
+
+        /** Checks every distinct node on its own, in parallel; each costs one modPow per prime of n−1. */
+        @Override public boolean verify() {
+            Set<PrattCert> nodes = Collections.newSetFromMap(new IdentityHashMap<>());
+            Deque<PrattCert> todo = new ArrayDeque<>(List.of(this));
+            while (!todo.isEmpty()) {
+                PrattCert c = todo.pop();
+                if (nodes.add(c)) todo.addAll(c.children);
+            }
+            return nodes.parallelStream().allMatch(PrattCert::checkNode);
+        }
+
+        private boolean checkNode() {
+            if (isLeaf()) return n.bitLength() <= 32 && n.compareTo(TWO) >= 0 && Primes.isPrimeDet64(n.longValue());
+            if (children.size() != factors.size() || !n.testBit(0)) return false;
+            BigInteger nm1 = n.subtract(BigInteger.ONE), product = BigInteger.ONE;
+            int i = 0;
+            for (var e : factors.entrySet()) {
+                if (e.getValue() < 1 || !children.get(i++).n.equals(e.getKey())) return false;
+                product = product.multiply(e.getKey().pow(e.getValue()));
+            }
+            if (!product.equals(nm1) || a.signum() <= 0 || a.compareTo(nm1) >= 0) return false;
+            // a^((n−1)/2) ≡ −1 settles q = 2 and a^(n−1) ≡ 1 with one modPow
+            if (!a.modPow(nm1.shiftRight(1), n).equals(nm1)) return false;
+            for (BigInteger q : factors.keySet()) {
+                if (!q.equals(TWO) && a.modPow(nm1.divide(q), n).equals(BigInteger.ONE)) return false;
+            }
+            return true;
+        }
     }
 
-    /** Pocklington certificate with an informative factor and a suitable base a. */
-    public record PocklingtonCert(BigInteger n, BigInteger q, BigInteger a) implements PrimeCertificate {
+    /**
+     * One prime power q^e of the factored part of n−1 (or n+1), its witness w (the base a, or the
+     * Lucas parameter P) and a certificate for q.
+     */
+    public record Part(BigInteger q, int e, BigInteger w, PrimeCertificate cert) {
+        BigInteger power() {
+            return q.pow(e);
+        }
+    }
+
+    /**
+     * Pocklington certificate: prime powers of n−1 whose product F exceeds √n, each with a base
+     * a such that a^(n−1) ≡ 1 and gcd(a^((n−1)/q) − 1, n) = 1.
+     */
+    public record PocklingtonCert(BigInteger n, List<Part> parts) implements PrimeCertificate {
+        @Override public String pretty() {
+            return "Pocklington: n=" + n + ", n−1 ⊇ " + describe(parts);
+        }
+
+        @Override public boolean verify() {
+            if (n.compareTo(TWO) <= 0 || !n.testBit(0)) return false;
+            BigInteger F = product(parts);
+            if (n.subtract(BigInteger.ONE).mod(F).signum() != 0 || F.multiply(F).compareTo(n) <= 0) return false;
+            return parts.parallelStream().allMatch(part -> minusOk(n, part));
+        }
+    }
+
+    /**
+     * Brillhart–Lehmer–Selfridge certificate from partly factored n−1 and n+1: prime powers
+     * F | n−1 with Pocklington bases, prime powers G | n+1 with Lucas parameters P of one
+     * discriminant d (Q = (P² − d)/4, (d/n) = −1). Every prime factor of n is then ≡ 1 (mod F)
+     * and ≡ ±1 (mod G), which proves n prime when lcm(F, G) > √n and the one other residue class
+     * below √n holds no divisor, or, from n−1 alone, when F > ∛n and c₁² − 4c₂ is not a square
+     * for n = c₂F² + c₁F + 1.
+     */
+    public record BlsCert(BigInteger n, List<Part> minus, BigInteger d, List<Part> plus) implements PrimeCertificate {
         @Override public String pretty() {
-            return "Pocklington: n=" + n + ", q=" + q + ", a=" + a;
+            StringBuilder sb = new StringBuilder("BLS: n=").append(n).append("\n  n−1 ⊇ ").append(describe(minus));
+            if (!plus.isEmpty()) sb.append("\n  n+1 ⊇ ").append(describe(plus)).append(" (d=").append(d).append(')');
+            return sb.toString();
+        }
+
+        /** Cheap arithmetic first, then the witnesses and sub-certificates of each side in parallel. */
+        @Override public boolean verify() {
+            if (n.compareTo(BigInteger.valueOf(5)) < 0 || !n.testBit(0)) return false;
+            BigInteger F = product(minus), G = product(plus);
+            if (n.subtract(BigInteger.ONE).mod(F).signum() != 0 || n.add(BigInteger.ONE).mod(G).signum() != 0) return false;
+            if (!plus.isEmpty() && (d.mod(BigInteger.valueOf(4)).intValue() != 1 || Primes.jacobi(d, n) != -1)) return false;
+            if (!sufficient(n, F, G)) return false;
+            return minus.parallelStream().allMatch(part -> minusOk(n, part))
+                    && plus.parallelStream().allMatch(part -> plusOk(n, d, part));
         }
     }
 
     private static final BigInteger TWO = BigInteger.TWO;
+    /** Small primes tried as witnesses before random ones. */
+    private static final int SMALL_WITNESSES = 64;
+    /** Witness candidates tried before giving up; a prime has a primitive root among them with overwhelming odds. */
+    private static final int WITNESS_TRIES = 1000;
+    /** Discriminants and Lucas parameters P tried for n+1. */
+    private static final int LUCAS_TRIES = 64;
 
-    /** Pratt: needs full factorization of n-1; tries to find a base 'a' verifying the conditions. */
+    /**
+     * Pratt: fully factors n−1, finds a primitive root a and proves each prime of n−1 the same way,
+     * down to leaves below 2³². Sub-certificates are memoized within the proof and, like the
+     * result, kept in {@link Caches#certificates()}.
+     */
     public static Optional<PrattCert> provePratt(BigInteger n) {
         if (n.compareTo(TWO) < 0) return Optional.empty();
+        return Optional.ofNullable(pratt(n, new HashMap<>()));
+    }
+
+    private static PrattCert pratt(BigInteger n, Map<BigInteger, PrattCert> memo) {
+        PrattCert c = memo.get(n);
+        if (c != null) return c;
+        if (n.bitLength() <= 32) {
+            if (!Primes.isPrimeDet64(n.longValue())) return null;
+            c = new PrattCert(n, BigInteger.ZERO, Map.of(), List.of());
+        } else if (Caches.certificates().get(n) instanceof PrattCert cached) {
+            c = cached;
+        } else {
+            c = prattNode(n, memo);
+            if (c == null) return null;
+            Caches.certificates().put(n, c);
+        }
+        memo.put(n, c);
+        return c;
+    }
+
+    private static PrattCert prattNode(BigInteger n, Map<BigInteger, PrattCert> memo) {
+        if (!n.testBit(0) || !n.isProbablePrime(20)) return null;
         BigInteger nm1 = n.subtract(BigInteger.ONE);
         var fac = Factorizer.factor(nm1);
-        if (!fac.complete()) return Optional.empty();
-
-        Map<BigInteger,Integer> f = fac.factors();
-        Map<BigInteger, List<BigInteger>> cert = new LinkedHashMap<>();
-        BigInteger a = TWO;
-
-        outer:
-        for (; a.compareTo(nm1) < 0; a = a.add(BigInteger.ONE)) {
-            if (!a.modPow(nm1, n).equals(BigInteger.ONE)) continue;
-            boolean ok = true; List<BigInteger> bases = new ArrayList<>();
-            for (var q : f.keySet()) {
-                BigInteger t = a.modPow(nm1.divide(q), n).subtract(BigInteger.ONE).gcd(n);
-                if (!t.equals(BigInteger.ONE)) { ok = false; break; } else bases.add(q);
+        if (!fac.complete()) return null;
+        Map<BigInteger,Integer> f = new TreeMap<>(fac.factors());
+        BigInteger a = primitiveRoot(n, nm1, f.keySet());
+        if (a == null) return null;
+        List<PrattCert> children = new ArrayList<>(f.size());
+        for (BigInteger q : f.keySet()) {
+            PrattCert sub = pratt(q, memo);
+            if (sub == null) return null;
+            children.add(sub);
+        }
+        return new PrattCert(n, a, Collections.unmodifiableMap(f), List.copyOf(children));
+    }
+
+    /**
+     * A primitive root of odd n > 2³² given the primes qs of n−1, or null. Candidates are small
+     * primes, then random; the cheap Jacobi symbol weeds out residues before any modPow, and the
+     * primes q are tried smallest first since a^((n−1)/q) ≡ 1 is likeliest for them. A base with
+     * (a/n) = −1 but a^((n−1)/2) ≢ −1 shows n composite and ends the search at once.
+     */
+    private static BigInteger primitiveRoot(BigInteger n, BigInteger nm1, Set<BigInteger> qs) {
+        BigInteger half = nm1.shiftRight(1);
+        for (int t = 0; t < WITNESS_TRIES; t++) {
+            BigInteger a = candidate(t, n);
+            if (Primes.jacobi(a, n) != -1) continue;
+            if (!a.modPow(half, n).equals(nm1)) return null;
+            boolean ok = true;
+            for (BigInteger q : qs) {
+                if (!q.equals(TWO) && a.modPow(nm1.divide(q), n).equals(BigInteger.ONE)) { ok = false; break; }
             }
-            if (ok) { cert.put(n, bases); break outer; }
+            if (ok) return a;
         }
-        if (!cert.containsKey(n)) return Optional.empty();
-        return Optional.of(new PrattCert(n, cert));
+        return null;
+    }
+
+    /** The t-th witness candidate for n > 2: the small primes below n first, then random a in [2, n−2]. */
+    private static BigInteger candidate(int t, BigInteger n) {
+        if (t < SMALL_WITNESSES && PrimeTable.big(t).compareTo(n.subtract(BigInteger.ONE)) < 0) return PrimeTable.big(t);
+        BigInteger span = n.subtract(BigInteger.valueOf(3));
+        if (span.signum() <= 0) return TWO;
+        BigInteger r = new BigInteger(span.bitLength() + 8, ThreadLocalRandom.current()).mod(span);
+        return r.add(TWO);
     }
 
     /**
-     * Pocklington: If n-1 = F * R with gcd(F, R) = 1, F > sqrt(n),
-     * and there exists a base a such that:
+     * Pocklington: If n-1 = F * R, F > sqrt(n), and for every prime q | F there is a base a with
      *   a^(n-1) ≡ 1 (mod n)
-     *   a^((n-1)/q) ≠ 1 (mod n) for every prime q | F
+     *   gcd(a^((n-1)/q) - 1, n) = 1
      * then n is prime.
      *
-     * We build F as the product of all known prime powers in the factorization of (n-1).
+     * F is built from the primes of n-1 that {@link #PROOF_EFFORT} finds and that can be proven
+     * in turn, so a hard cofactor of n-1 costs at most the deadline. Certificates are kept in
+     * {@link Caches#certificates()}.
      */
     public static Optional<PocklingtonCert> provePocklington(BigInteger n) {
-        if (n.compareTo(TWO) <= 0) return Optional.empty();
+        if (n.compareTo(TWO) <= 0 || !Primes.isPrimeBPSW(n)) return Optional.empty();
+        if (Caches.certificates().get(n) instanceof PocklingtonCert c) return Optional.of(c);
+        List<Part> parts = minusParts(n, Factorizer.factorAsync(n.subtract(BigInteger.ONE), PROOF_EFFORT).join(), PROOF_EFFORT);
+        if (parts == null) return Optional.empty();
+        BigInteger F = product(parts);
+        if (F.multiply(F).compareTo(n) <= 0) return Optional.empty();
+        PocklingtonCert c = new PocklingtonCert(n, parts);
+        Caches.certificates().put(n, c);
+        return Optional.of(c);
+    }
 
-        BigInteger nm1 = n.subtract(BigInteger.ONE);
-        var fac = Factorizer.factor(nm1);
-        var factors = fac.factors();
+    /** {@link #proveBls(BigInteger, FactorOptions)} with {@link #PROOF_EFFORT}. */
+    public static Optional<BlsCert> proveBls(BigInteger n) {
+        return proveBls(n, PROOF_EFFORT);
+    }
 
-        BigInteger F = BigInteger.ONE;
-        BigInteger largestQ = BigInteger.ONE;
-        for (var e : factors.entrySet()) {
-            BigInteger q = e.getKey();
-            int exp = e.getValue();
-            BigInteger qPow = q.pow(exp);
-            F = F.multiply(qPow);
-            if (q.compareTo(largestQ) > 0) largestQ = q;
-        }
+    /**
+     * Brillhart–Lehmer–Selfridge proof from whatever {@code effort} finds of n−1 and n+1 (both
+     * factored at once; n+1 is dropped as soon as n−1 alone suffices). Primes of n±1 are proven
+     * recursively the same way, below 2³² by a Pratt leaf. Empty if n is composite or the
+     * factored parts stay too small.
+     */
+    public static Optional<BlsCert> proveBls(BigInteger n, FactorOptions effort) {
+        if (n.compareTo(BigInteger.valueOf(5)) < 0 || !n.testBit(0) || !Primes.isPrimeBPSW(n)) return Optional.empty();
+        if (Caches.certificates().get(n) instanceof BlsCert c) return Optional.of(c);
+        var minusJob = Factorizer.factorAsync(n.subtract(BigInteger.ONE), effort);
+        var plusJob = Factorizer.factorAsync(n.add(BigInteger.ONE), effort);
 
-        if (F.multiply(F).compareTo(n) <= 0) {
+        List<Part> minus = minusParts(n, minusJob.join(), effort);
+        if (minus == null) {
+            plusJob.cancel(true);
             return Optional.empty();
         }
+        BlsCert c = null;
+        if (sufficient(n, product(minus), BigInteger.ONE)) {
+            plusJob.cancel(true);
+            c = new BlsCert(n, minus, BigInteger.ZERO, List.of());
+        } else {
+            BigInteger d = discriminant(n);
+            List<Part> plus = d == null ? null : plusParts(n, d, plusJob.join(), effort);
+            if (plus != null && sufficient(n, product(minus), product(plus))) c = new BlsCert(n, minus, d, plus);
+        }
+        if (c == null) return Optional.empty();
+        Caches.certificates().put(n, c);
+        return Optional.of(c);
+    }
 
-        for (BigInteger a = TWO; a.compareTo(nm1) < 0; a = a.add(BigInteger.ONE)) {
-            if (!a.modPow(nm1, n).equals(BigInteger.ONE)) continue;
-            boolean ok = true;
-            for (var e : factors.entrySet()) {
-                BigInteger q = e.getKey();
-                if (a.modPow(nm1.divide(q), n).equals(BigInteger.ONE)) { ok = false; break; }
+    /**
+     * Whether F | n−1 and G | n+1, with every prime factor p of n ≡ 1 (mod F) and ≡ ±1 (mod G),
+     * force n prime. With L = lcm(F, G) > √n a prime factor below √n could only be the least
+     * r ≡ 1 (mod F), ≡ −1 (mod G), so it suffices that r does not divide n. Otherwise F alone
+     * has to pass Brillhart–Lehmer–Selfridge's cube-root test.
+     */
+    static boolean sufficient(BigInteger n, BigInteger F, BigInteger G) {
+        BigInteger g = F.gcd(G), L = F.divide(g).multiply(G);
+        if (L.multiply(L).compareTo(n) > 0) {
+            BigInteger Fg = F.divide(g), Gg = G.divide(g);
+            BigInteger t = Gg.equals(BigInteger.ONE) ? BigInteger.ZERO
+                    : BigInteger.valueOf(-2 / g.intValueExact()).multiply(Fg.modInverse(Gg)).mod(Gg);
+            BigInteger r = F.multiply(t).add(BigInteger.ONE).mod(L);
+            return r.compareTo(BigInteger.ONE) <= 0 || r.multiply(r).compareTo(n) > 0 || n.mod(r).signum() != 0;
+        }
+        if (F.pow(3).compareTo(n) <= 0) return false;
+        BigInteger[] c = n.subtract(BigInteger.ONE).divide(F).divideAndRemainder(F);  // c₂, c₁
+        BigInteger disc = c[1].multiply(c[1]).subtract(c[0].shiftLeft(2));
+        return disc.signum() < 0 || !Primes.isSquare(disc);
+    }
+
+    /** Effort spent factoring n±1 for a proof: a short rho/p−1/ECM pass, two seconds at most. */
+    public static final FactorOptions PROOF_EFFORT = FactorOptions.DEFAULT
+            .withTimeout(Duration.ofSeconds(2)).withRhoBudget(Duration.ofMillis(100)).withSiqs(false);
+
+    /**
+     * Parts for the primes of n−1 found in {@code fac} that get a base and a certificate (the
+     * others are left out); null if a base shows n composite.
+     */
+    private static List<Part> minusParts(BigInteger n, Factorization fac, FactorOptions effort) {
+        BigInteger nm1 = n.subtract(BigInteger.ONE);
+        List<Part> parts = new ArrayList<>();
+        for (var e : fac.factors().entrySet()) {
+            BigInteger q = e.getKey();
+            if (q.compareTo(TWO) < 0 || fac.composites().contains(q)) continue;
+            BigInteger w = null;
+            for (int t = 0; t < WITNESS_TRIES && w == null; t++) {
+                BigInteger a = candidate(t, n);
+                if (!a.modPow(nm1, n).equals(BigInteger.ONE)) return null;
+                if (a.modPow(nm1.divide(q), n).subtract(BigInteger.ONE).gcd(n).equals(BigInteger.ONE)) w = a;
+            }
+            PrimeCertificate sub = w == null ? null : provePrime(q, effort);
+            if (sub != null) parts.add(new Part(q, e.getValue(), w, sub));
+        }
+        return parts;
+    }
+
+    /** Like {@link #minusParts} for n+1, with Lucas parameters P = 1, 3, 5, … of discriminant d. */
+    private static List<Part> plusParts(BigInteger n, BigInteger d, Factorization fac, FactorOptions effort) {
+        BigInteger np1 = n.add(BigInteger.ONE);
+        List<Part> parts = new ArrayList<>();
+        for (var e : fac.factors().entrySet()) {
+            BigInteger q = e.getKey();
+            if (q.compareTo(TWO) < 0 || fac.composites().contains(q)) continue;
+            BigInteger w = null;
+            for (int P = 1; P < 2 * LUCAS_TRIES && w == null; P += 2) {
+                BigInteger bp = BigInteger.valueOf(P), Q = bp.multiply(bp).subtract(d).shiftRight(2);
+                if (Q.signum() == 0 || !Q.gcd(n).equals(BigInteger.ONE)) continue;
+                if (Primes.lucasUV_binary(n, bp, Q, d, np1)[0].signum() != 0) return null;
+                if (Primes.lucasUV_binary(n, bp, Q, d, np1.divide(q))[0].gcd(n).equals(BigInteger.ONE)) w = bp;
             }
-            if (ok) return Optional.of(new PocklingtonCert(n, largestQ, a));
+            PrimeCertificate sub = w == null ? null : provePrime(q, effort);
+            if (sub != null) parts.add(new Part(q, e.getValue(), w, sub));
+        }
+        return parts;
+    }
+
+    /** First d in 5, −7, 9, −11, … with (d/n) = −1; null if n shows a factor first. */
+    private static BigInteger discriminant(BigInteger n) {
+        for (int k = 5; k < 2 * LUCAS_TRIES; k += 2) {
+            BigInteger d = BigInteger.valueOf((k & 2) == 0 ? k : -k);
+            int j = Primes.jacobi(d, n);
+            if (j == -1) return d;
+            if (j == 0 && d.abs().compareTo(n) < 0) return null;
         }
-        return Optional.empty();
+        return null;
+    }
+
+    /** A certificate for prime q: cached, a Pratt leaf below 2³², otherwise BLS; null if none. */
+    private static PrimeCertificate provePrime(BigInteger q, FactorOptions effort) {
+        if (q.bitLength() <= 32) return provePratt(q).orElse(null);
+        PrimeCertificate c = Caches.certificates().get(q);
+        if (c != null) return c;
+        return proveBls(q, effort).orElse(null);
+    }
+
+    /** a^(n−1) ≡ 1, gcd(a^((n−1)/q) − 1, n) = 1 and a valid certificate for q. */
+    private static boolean minusOk(BigInteger n, Part part) {
+        BigInteger nm1 = n.subtract(BigInteger.ONE), a = part.w();
+        if (part.e() < 1 || a.compareTo(BigInteger.ONE) <= 0 || a.compareTo(n) >= 0) return false;
+        if (!a.modPow(nm1, n).equals(BigInteger.ONE)) return false;
+        if (!a.modPow(nm1.divide(part.q()), n).subtract(BigInteger.ONE).gcd(n).equals(BigInteger.ONE)) return false;
+        return part.cert().n().equals(part.q()) && part.cert().verify();
+    }
+
+    /** U_{n+1} ≡ 0, gcd(U_{(n+1)/q}, n) = 1 for (P, Q = (P² − d)/4) and a valid certificate for q. */
+    private static boolean plusOk(BigInteger n, BigInteger d, Part part) {
+        BigInteger np1 = n.add(BigInteger.ONE), P = part.w(), P2d = P.multiply(P).subtract(d);
+        if (part.e() < 1 || P2d.signum() == 0 || P2d.testBit(0) || P2d.testBit(1)) return false;
+        BigInteger Q = P2d.shiftRight(2);
+        if (!Q.gcd(n).equals(BigInteger.ONE)) return false;
+        if (Primes.lucasUV_binary(n, P, Q, d, np1)[0].signum() != 0) return false;
+        if (!Primes.lucasUV_binary(n, P, Q, d, np1.divide(part.q()))[0].gcd(n).equals(BigInteger.ONE)) return false;
+        return part.cert().n().equals(part.q()) && part.cert().verify();
+    }
+
+    private static BigInteger product(List<Part> parts) {
+        BigInteger F = BigInteger.ONE;
+        for (Part p : parts) F = F.multiply(p.power());
+        return F;
+    }
+
+    private static String describe(List<Part> parts) {
+        StringJoiner j = new StringJoiner(" · ");
+        for (Part p : parts) j.add((p.e() == 1 ? p.q().toString() : p.q() + "^" + p.e()) + " [" + p.w() + "]");
+        return j.toString();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,64 @@
+package com.rlnkoo.primely;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Safe-prime search behind {@link Primes#randomSafePrime}.
+ *
+ * q and p = 2q+1 are sieved together, so both are free of small factors before any modular
+ * exponentiation. Survivors then get one base-2 Fermat test on p, which rejects nearly all of
+ * them; only then is q run through BPSW. For prime q, 2^(p−1) ≡ 1 (mod p) already proves p
+ * prime (Pocklington with a = 2; gcd(2² − 1, p) = 1 since p ≠ 3), so p needs no test of its own.
+ */
+final class SafePrimeSearch {
+    private static final SecureRandom RNG = new SecureRandom();
+
+    private SafePrimeSearch() {}
+
+    /** Random safe prime of the given bit length, or null once {@code stop} reports true. */
+    static BigInteger search(int bits, BooleanSupplier stop) {
+        if (bits < 3) throw new IllegalArgumentException("no safe prime has fewer than 3 bits");
+        int qBits = bits - 1;
+        int bound = CandidateSieve.defaultBound(bits);
+        while (!stop.getAsBoolean()) {
+            BigInteger start = new BigInteger(qBits, RNG).setBit(qBits - 1).setBit(0);
+            CandidateSieve sieve = new CandidateSieve(start, bound, CandidateSieve.DEFAULT_WINDOW, true);
+            for (BigInteger q = sieve.next(); q.bitLength() == qBits; q = sieve.next()) {
+                if (stop.getAsBoolean()) return null;
+                BigInteger p = q.shiftLeft(1).setBit(0);
+                if (!BigInteger.TWO.modPow(p.subtract(BigInteger.ONE), p).equals(BigInteger.ONE)) continue;
+                if (Primes.isSieved(q)) return p;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Races {@code threads} independent searches; the first hit completes the future. Cancelling
+     * the future, or the optional timeout firing, makes every worker stop at its next candidate.
+     */
+    static CompletableFuture<BigInteger> async(int bits, int threads, Duration timeout) {
+        if (bits < 3) throw new IllegalArgumentException("no safe prime has fewer than 3 bits");
+        if (threads < 1) throw new IllegalArgumentException("threads must be >= 1");
+        CompletableFuture<BigInteger> result = new CompletableFuture<>();
+        if (timeout != null) result.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        for (int i = 0; i < threads; i++) {
+            Thread t = new Thread(() -> {
+                try {
+                    BigInteger p = search(bits, result::isDone);
+                    if (p != null) result.complete(p);
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            }, "primely-safe-prime-" + i);
+            t.setDaemon(true);
+            t.start();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,164 @@
+package com.rlnkoo.primely;
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+
+/**
+ * Odd-only, word-packed segmented sieve engine behind {@link Sieve}.
+ *
+ * A segment starts at an even lo and holds only odd numbers: bit i of the {@code long[]} stands
+ * for lo + 2i + 1 and is set once that number is known to be composite. Primes are read back a
+ * word at a time with {@link Long#numberOfTrailingZeros}. Each {@link BucketSieve} owns one
+ * buffer and reuses it for all of its segments.
+ *
+ * The primes 3..17 are never crossed off. Their combined pattern repeats every 3·5·7·11·13·17
+ * odd numbers (about 32 KB of bits), so a segment starts as a tile of that precomputed pattern,
+ * read at the segment's phase two words at a time, and real sieving begins at 19.
+ */
+final class SegmentedSieve {
+    private static final int[] PATTERN_PRIMES = {3, 5, 7, 11, 13, 17};
+    private static final int PERIOD = 3 * 5 * 7 * 11 * 13 * 17;
+    /** Bit j set iff a pattern prime divides 2j+1; runs past PERIOD so any 64-bit read stays in range. */
+    private static final long[] PATTERN = pattern();
+
+    private SegmentedSieve() {}
+
+    /** Number of odd numbers in [lo, to) for even lo. */
+    static int bits(long lo, long to) {
+        return (int) ((to - lo) >>> 1);
+    }
+
+    /**
+     * Starts a segment: the pattern tile, with the pattern primes themselves cleared again, 1
+     * marked, and the bits past {@code bits} in the last word set.
+     */
+    static void presieve(long lo, int bits, long[] buf) {
+        int words = (bits + 63) >>> 6;
+        tile(lo, words, buf);
+        long last = lo + 2L * bits - 1;
+        if (lo < PATTERN_PRIMES[PATTERN_PRIMES.length - 1]) {
+            for (int p : PATTERN_PRIMES) {
+                if (p > lo && p <= last) buf[(int) ((p - lo - 1) >>> 7)] &= ~(1L << ((p - lo - 1) >>> 1));
+            }
+        }
+        if ((bits & 63) != 0) buf[words - 1] |= -1L << bits;
+        if (lo == 0) buf[0] |= 1L;
+    }
+
+    /**
+     * Copies the raw pattern into buf[0, words) starting at the phase of lo + 1: every odd
+     * multiple of 3..17 is set, those primes included.
+     */
+    static void tile(long lo, int words, long[] buf) {
+        int pos = (int) ((lo >>> 1) % PERIOD);
+        for (int k = 0; k < words; k++) {
+            int w = pos >>> 6, s = pos & 63;
+            buf[k] = s == 0 ? PATTERN[w] : (PATTERN[w] >>> s) | (PATTERN[w + 1] << (64 - s));
+            pos += 64;
+            if (pos >= PERIOD) pos -= PERIOD;
+        }
+    }
+
+    private static long[] pattern() {
+        long[] pat = new long[((PERIOD + 64) >>> 6) + 2];
+        long bits = (long) pat.length << 6;
+        for (int p : PATTERN_PRIMES) {
+            for (long j = p >>> 1; j < bits; j += p) pat[(int) (j >>> 6)] |= 1L << j;
+        }
+        return pat;
+    }
+
+    /** Calls {@code action} for every prime left in a sieved segment, ascending. */
+    static void forEach(long[] buf, long lo, int bits, LongConsumer action) {
+        int words = (bits + 63) >>> 6;
+        for (int w = 0; w < words; w++) drain(buf[w], lo + 1 + ((long) w << 7), action);
+    }
+
+    /** Primes of one sieved word whose bit 0 stands for {@code at}. */
+    private static void drain(long word, long at, LongConsumer action) {
+        for (long free = ~word; free != 0; free &= free - 1) {
+            action.accept(at + 2L * Long.numberOfTrailingZeros(free));
+        }
+    }
+
+    /** Number of primes left in a sieved segment. */
+    static long count(long[] buf, int bits) {
+        int words = (bits + 63) >>> 6;
+        long n = 0;
+        for (int w = 0; w < words; w++) n += Long.bitCount(~buf[w]);
+        return n;
+    }
+
+    /** The primes left in a sieved segment, as an exact-length array. */
+    static long[] collect(long[] buf, long lo, int bits) {
+        int words = (bits + 63) >>> 6;
+        long[] out = new long[(int) count(buf, bits)];
+        for (int w = 0, k = 0; w < words; w++) {
+            long at = lo + 1 + ((long) w << 7);
+            for (long free = ~buf[w]; free != 0; free &= free - 1) {
+                out[k++] = at + 2L * Long.numberOfTrailingZeros(free);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Ascending primes in [from, to), one {@link BucketSieve} segment at a time. The segment
+     * buffer belongs to the cursor (it may be advanced from different threads, so it cannot
+     * borrow a thread's buffer).
+     */
+    static final class Cursor implements Spliterator.OfLong {
+        private final BucketSieve sieve;
+        private boolean two;
+        private int words, w;       // words in the sieved segment, word being drained
+        private long free;          // undrained prime bits of word w
+
+        Cursor(long from, long to, int segmentSize) {
+            this.two = from <= 2 && to > 2;
+            this.sieve = new BucketSieve(from & ~1L, to, Math.max(64, (segmentSize >>> 1) & ~63));
+        }
+
+        @Override public boolean tryAdvance(LongConsumer action) {
+            if (two) { two = false; action.accept(2); return true; }
+            while (free == 0) {
+                if (++w >= words && !load()) return false;
+                if (w < words) free = ~sieve.buf[w];
+            }
+            action.accept(sieve.lo + 1 + ((long) w << 7) + 2L * Long.numberOfTrailingZeros(free));
+            free &= free - 1;
+            return true;
+        }
+
+        @Override public void forEachRemaining(LongConsumer action) {
+            if (two) { two = false; action.accept(2); }
+            long[] buf = sieve.buf;
+            while (free != 0) {
+                action.accept(sieve.lo + 1 + ((long) w << 7) + 2L * Long.numberOfTrailingZeros(free));
+                free &= free - 1;
+            }
+            for (w++; w < words; w++) drain(buf[w], sieve.lo + 1 + ((long) w << 7), action);
+            while (sieve.next()) forEach(buf, sieve.lo, sieve.bits, action);
+            words = w = 0;
+        }
+
+        /** Sieves the next segment; false when the range is exhausted. */
+        private boolean load() {
+            if (!sieve.next()) { words = w = 0; return false; }
+            words = (sieve.bits + 63) >>> 6;
+            w = 0;
+            free = ~sieve.buf[0];
+            return true;
+        }
+
+        @Override public Spliterator.OfLong trySplit() { return null; }
+
+        @Override public long estimateSize() { return Long.MAX_VALUE; }
+
+        @Override public int characteristics() {
+            return ORDERED | SORTED | DISTINCT | NONNULL | IMMUTABLE;
+        }
+
+        @Override public Comparator<? super Long> getComparator() { return null; }
+    }
+}
@@ -1,18 +1,19 @@
 package com.rlnkoo.primely;
 
-import java.util.ArrayList;
-import java.util.BitSet;
-import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ForkJoinPool;
 import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
 
 /**
- * Segmented sieve of Eratosthenes backed by BitSet and a small wheel (2*3*5) pre-sieve.
- * Can run segments in parallel (ForkJoin).
+ * Segmented sieve of Eratosthenes over odd numbers packed into {@code long[]} words, with a
+ * pre-sieved small-prime pattern and buckets for large sieving primes. Can sieve segments in
+ * parallel, ahead of the consumer, on a shared or caller-supplied executor.
  */
 public final class Sieve {
     private static final int DEFAULT_SEG_SZ = 1 << 20;
-    private static final long[] SM_PRIMES = {2, 3, 5, 7, 11, 13, 17, 19, 23, 29};
 
     private Sieve() {}
 
@@ -24,62 +25,73 @@ public final class Sieve {
     /**
      * Primes in [from, to).
      * @param segmentSize numbers per segment (tune per cache/memory)
-     * @param parallel whether to process segments in parallel
-     * @param parallelism size of the ForkJoin pool when parallel
+     * @param parallel whether to sieve segments ahead of the consumer on the common pool
+     * @param parallelism chunks in flight at once when parallel
      */
     public static LongStream primesBetween(long from, long to, int segmentSize, boolean parallel, int parallelism) {
-        if (from < 2) from = 2;
-        if (to <= from) return LongStream.empty();
-
-        final long limit = (long) Math.floor(Math.sqrt(to - 1));
-        final List<Integer> base = basePrimes((int) limit);
-
-        final long f = from, t = to;
-        final int seg = Math.max(1 << 16, segmentSize);
-        final int segCount = (int) ((t - f + seg - 1) / seg);
-
-        LongStream idx = LongStream.range(0, segCount);
-        if (parallel) {
-            ForkJoinPool fjp = new ForkJoinPool(parallelism);
-
-            return fjp.submit(() ->
-                    idx.parallel()
-                            .flatMap(i -> sieveSegment(base, f + i * seg, Math.min(t, f + (i + 1L) * seg)))
-                            .onClose(fjp::shutdown)).join();
-        } else {
-            return idx.flatMap(i -> sieveSegment(base, f + i * seg, Math.min(t, f + (i + 1L) * seg)));
+        if (!parallel) {
+            if (from < 2) from = 2;
+            if (to <= from) return LongStream.empty();
+            return StreamSupport.longStream(new SegmentedSieve.Cursor(from, to, segmentSize(segmentSize)), false);
         }
+        return primesBetween(from, to, segmentSize, ForkJoinPool.commonPool(), parallelism, true);
     }
 
-    private static LongStream sieveSegment(List<Integer> base, long start, long end) {
-        int len = (int) (end - start);
-        BitSet composite = new BitSet(len);
+    /**
+     * Primes in [from, to), sieved ahead of the consumer on {@code executor}. Closing the stream
+     * stops the outstanding work. See {@link #primeSpliterator}.
+     */
+    public static LongStream primesBetween(long from, long to, int segmentSize, Executor executor,
+                                           int parallelism, boolean ordered) {
+        SievePipeline p = pipeline(from, to, segmentSize, executor, parallelism, ordered);
+        return StreamSupport.longStream(p, false).onClose(p::cancel);
+    }
 
-        for (long p : SM_PRIMES) {
-            if (p >= end) break;
-            long m = Math.max(p * p, ((start + p - 1) / p) * p);
-            for (long j = m; j < end; j += p) composite.set((int) (j - start));
-        }
+    /**
+     * Parallel sieve over [from, to) as a spliterator. Up to {@code parallelism} chunks of
+     * segments are sieved on {@code executor} at once, each keeping at most a few finished
+     * segments ahead of the consumer, so memory stays flat however slowly it reads. Executor
+     * threads never block: a chunk whose buffer is full just stops until the consumer catches up.
+     * When {@code ordered}, primes come out ascending and the spliterator reports ORDERED and
+     * SORTED; otherwise segments are delivered as they finish. Until traversal starts it splits
+     * by chunks, so it also feeds parallel streams.
+     */
+    public static Spliterator.OfLong primeSpliterator(long from, long to, int segmentSize, Executor executor,
+                                                      int parallelism, boolean ordered) {
+        return pipeline(from, to, segmentSize, executor, parallelism, ordered);
+    }
 
-        for (int p : base) {
-            long pp = (long) p * p;
-            if (pp >= end) break;
-            long m = Math.max(pp, ((start + p - 1L) / p) * p);
-            for (long j = m; j < end; j += p) composite.set((int) (j - start));
-        }
+    /**
+     * Number of primes in [from, to). Chunks of the range are sieved in parallel on the common
+     * pool and only popcounted; no prime is ever extracted.
+     */
+    public static long countPrimes(long from, long to) {
+        if (from < 2) from = 2;
+        if (to <= from) return 0;
+        long lo0 = from & ~1L, t = to;
+        int segBits = segmentSize(DEFAULT_SEG_SZ) >>> 1;
+        long chunkLen = SievePipeline.chunkLength(to, segBits);
+        long chunks = (to - lo0 + chunkLen - 1) / chunkLen;
+        long two = from <= 2 && to > 2 ? 1 : 0;
+        return two + LongStream.range(0, chunks).parallel().map(i -> {
+            long lo = lo0 + i * chunkLen;
+            BucketSieve sieve = new BucketSieve(lo, t - lo > chunkLen ? lo + chunkLen : t, segBits);
+            long n = 0;
+            while (sieve.next()) n += SegmentedSieve.count(sieve.buf, sieve.bits);
+            return n;
+        }).sum();
+    }
 
-        return LongStream.range(0, len)
-                .filter(i -> !composite.get((int) i))
-                .map(i -> start + i);
+    private static SievePipeline pipeline(long from, long to, int segmentSize, Executor executor,
+                                          int parallelism, boolean ordered) {
+        Objects.requireNonNull(executor, "executor");
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism must be >= 1");
+        if (from < 2) from = 2;
+        if (to < from) to = from;
+        return new SievePipeline(from, to, segmentSize(segmentSize), executor, parallelism, ordered);
     }
 
-    /** Simple sieve to produce base primes up to n (inclusive). */
-    private static List<Integer> basePrimes(int n) {
-        boolean[] cmp = new boolean[n + 1];
-        for (int i = 2; i * (long) i <= n; i++)
-            if (!cmp[i]) for (long j = (long) i * i; j <= n; j += i) cmp[(int) j] = true;
-        ArrayList<Integer> ps = new ArrayList<>();
-        for (int i = 2; i <= n; i++) if (!cmp[i]) ps.add(i);
-        return ps;
+    private static int segmentSize(int requested) {
+        return Math.max(1 << 16, requested) & ~127;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,227 @@
+package com.rlnkoo.primely;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+
+/**
+ * Parallel segment pipeline behind {@link Sieve#primeSpliterator}.
+ *
+ * The range is cut into chunks of whole segments. Up to {@code parallelism} chunks are in
+ * flight at once, each sieved by its own {@link BucketSieve} on the executor. Chunks are long
+ * enough (≥ 8·√to numbers) that regenerating the base primes per chunk stays cheap. A chunk
+ * hands finished segments over in a queue of at most {@link #QUEUE} entries. When the queue is
+ * full its task simply returns, and the consumer resubmits it after taking a segment, so no
+ * executor thread ever blocks and an abandoned pipeline leaves nothing running.
+ *
+ * Ordered mode drains chunks strictly in sequence; unordered mode takes whichever segment is
+ * ready first. {@link #trySplit} hands out the first half of the chunks, and only before any
+ * chunk has been started.
+ */
+final class SievePipeline implements Spliterator.OfLong {
+    private static final int QUEUE = 4;
+    private static final int MIN_SEGMENTS_PER_CHUNK = 16;
+
+    private final Executor executor;
+    private final int parallelism, segBits;
+    private final boolean ordered;
+    private final long lo0, to, chunkLen;
+    private long nextChunk, endChunk;       // chunk indices not yet started
+    private boolean two;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition ready = lock.newCondition();
+    private final ArrayDeque<Chunk> active = new ArrayDeque<>();
+    private volatile boolean cancelled;
+
+    private long[] cur = new long[0];       // segment being handed out
+    private int at;
+
+    SievePipeline(long from, long to, int segmentSize, Executor executor, int parallelism, boolean ordered) {
+        this.executor = executor;
+        this.parallelism = Math.max(1, parallelism);
+        this.ordered = ordered;
+        this.to = to;
+        this.two = from <= 2 && to > 2;
+        this.lo0 = from & ~1L;
+        this.segBits = Math.max(64, (segmentSize >>> 1) & ~63);
+        this.chunkLen = chunkLength(to, segBits);
+        this.nextChunk = 0;
+        this.endChunk = to - lo0 >= 2 ? (to - lo0 + chunkLen - 1) / chunkLen : 0;
+    }
+
+    /** Numbers per chunk: whole segments, and enough of them to amortise the base primes up to √to. */
+    static long chunkLength(long to, int segBits) {
+        long segLen = 2L * segBits;
+        return Math.max(MIN_SEGMENTS_PER_CHUNK, (8 * BucketSieve.isqrt(to - 1) + segLen - 1) / segLen) * segLen;
+    }
+
+    private SievePipeline(SievePipeline parent, long from, long end) {
+        this.executor = parent.executor;
+        this.parallelism = parent.parallelism;
+        this.ordered = parent.ordered;
+        this.to = parent.to;
+        this.lo0 = parent.lo0;
+        this.segBits = parent.segBits;
+        this.chunkLen = parent.chunkLen;
+        this.nextChunk = from;
+        this.endChunk = end;
+    }
+
+    /** Stops every chunk at its next segment; pending results are dropped. */
+    void cancel() {
+        cancelled = true;
+    }
+
+    @Override public boolean tryAdvance(LongConsumer action) {
+        if (two) { two = false; action.accept(2); return true; }
+        while (at == cur.length) {
+            if (!fill()) return false;
+        }
+        action.accept(cur[at++]);
+        return true;
+    }
+
+    @Override public void forEachRemaining(LongConsumer action) {
+        if (two) { two = false; action.accept(2); }
+        do {
+            long[] c = cur;
+            for (int i = at; i < c.length; i++) action.accept(c[i]);
+            at = c.length;
+        } while (fill());
+    }
+
+    /** Takes the next finished segment into {@code cur}; false once everything is handed out. */
+    private boolean fill() {
+        lock.lock();
+        try {
+            while (true) {
+                start();
+                if (active.isEmpty()) return false;
+                boolean removed = false;
+                for (Iterator<Chunk> it = active.iterator(); it.hasNext(); ) {
+                    Chunk c = it.next();
+                    if (c.failure != null) {
+                        cancel();
+                        throw c.failure instanceof RuntimeException re ? re : new CompletionException(c.failure);
+                    }
+                    long[] seg = c.queue.poll();
+                    if (seg != null) {
+                        if (!c.running && !c.finished) {    // parked on a full queue
+                            c.running = true;
+                            executor.execute(c);
+                        }
+                        cur = seg;
+                        at = 0;
+                        return true;
+                    }
+                    if (c.finished) {
+                        it.remove();
+                        removed = true;
+                    } else if (ordered) {
+                        break;
+                    }
+                }
+                if (!removed) ready.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Tops the window up to {@code parallelism} chunks. */
+    private void start() {
+        while (active.size() < parallelism && nextChunk < endChunk && !cancelled) {
+            long lo = lo0 + nextChunk++ * chunkLen;
+            Chunk c = new Chunk(lo, to - lo > chunkLen ? lo + chunkLen : to);
+            c.running = true;
+            active.addLast(c);
+            executor.execute(c);
+        }
+    }
+
+    @Override public Spliterator.OfLong trySplit() {
+        lock.lock();
+        try {
+            // an ORDERED split must hand out a prefix, so only a pipeline that has not started yet splits
+            long n = endChunk - nextChunk;
+            if (n < 2 || !active.isEmpty() || at < cur.length) return null;
+            long mid = nextChunk + n / 2;
+            SievePipeline prefix = new SievePipeline(this, nextChunk, mid);
+            prefix.two = two;
+            two = false;
+            nextChunk = mid;
+            return prefix;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override public long estimateSize() { return Long.MAX_VALUE; }
+
+    @Override public int characteristics() {
+        return ordered ? ORDERED | SORTED | DISTINCT | NONNULL | IMMUTABLE : DISTINCT | NONNULL | IMMUTABLE;
+    }
+
+    @Override public Comparator<? super Long> getComparator() {
+        if (!ordered) throw new IllegalStateException();
+        return null;
+    }
+
+    /** One contiguous run of segments; runs on the executor until its queue is full or it is done. */
+    private final class Chunk implements Runnable {
+        final long lo, hi;
+        final ArrayDeque<long[]> queue = new ArrayDeque<>(QUEUE);
+        BucketSieve sieve;
+        boolean running, finished;      // guarded by lock
+        Throwable failure;
+
+        Chunk(long lo, long hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override public void run() {
+            try {
+                if (sieve == null) sieve = new BucketSieve(lo, hi, segBits);
+                while (true) {
+                    boolean more = !cancelled && sieve.next();
+                    long[] seg = more ? SegmentedSieve.collect(sieve.buf, sieve.lo, sieve.bits) : null;
+                    lock.lock();
+                    try {
+                        if (!more) {
+                            finished = true;
+                            running = false;
+                            ready.signalAll();
+                            return;
+                        }
+                        queue.add(seg);
+                        ready.signalAll();
+                        if (queue.size() >= QUEUE) {
+                            running = false;
+                            return;
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            } catch (Throwable e) {
+                lock.lock();
+                try {
+                    failure = e;
+                    finished = true;
+                    running = false;
+                    ready.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+}
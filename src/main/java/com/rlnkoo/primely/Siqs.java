@@ -0,0 +1,566 @@
+package com.rlnkoo.primely;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigInteger;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Self-initialising quadratic sieve behind {@link Factorizer#siqs}.
+ *
+ * A Knuth–Schroeppel multiplier k is chosen first, then the factor base: the primes p with kN a
+ * square mod p, each with its root t_p from {@link ModMath#sqrtMod}. Polynomials are
+ * g(x) = ((Ax + B)² − kN) / A with A a product of s factor-base primes near (2kN)^½ / M; the
+ * 2^(s−1) choices of B for one A are visited in Gray-code order, so switching polynomial costs
+ * one addition per factor-base prime and root.
+ *
+ * Each polynomial is sieved over [−M, M) in {@value #BLOCK}-byte blocks by adding ⌊log₂ p⌉ at the
+ * roots; primes below {@value #SMALL} are not sieved and the threshold allows for them. Primes
+ * above the block size are dropped into per-block buckets once per polynomial instead of being
+ * visited in every block. Survivors are trial divided using the roots and the bucket entries, so
+ * only primes known to divide are divided out.
+ * A cofactor below the large-prime bound makes a partial relation, and two partials with the same
+ * large prime combine into a full one.
+ *
+ * Workers sieve whole A batches on their own threads. Once the relations exceed the factor base,
+ * singletons are pruned, {@link NullSpace} finds dependencies, and each dependency gives a
+ * congruence of squares X² ≡ Y² (mod N) to try.
+ */
+final class Siqs {
+    private static final int BLOCK = 1 << 15;
+    private static final int SMALL = 100;
+    /** Natural-log allowance in the threshold for the unsieved small primes and rounding. */
+    private static final double SLACK = 13;
+    private static final int EXTRA = 96;
+    private static final int ROUNDS = 6;
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final int[] MULTIPLIERS = {
+            1, 2, 3, 5, 6, 7, 10, 11, 13, 14, 15, 17, 19, 21, 22, 23, 26, 29, 30, 31, 33, 34, 35, 37,
+            38, 39, 41, 42, 43, 46, 47, 51, 53, 55, 57, 58, 59, 61, 62, 65, 66, 67, 69, 70, 71, 73};
+    /** Bits of kN, factor base size, large-prime bound over the largest base prime, half-width M in blocks. */
+    private static final int[][] PARAMS = {
+            {100, 120, 60, 1}, {130, 300, 60, 1}, {160, 900, 80, 1}, {183, 1_800, 80, 1},
+            {200, 2_800, 100, 1}, {216, 4_500, 120, 1}, {233, 8_000, 160, 2}, {249, 14_000, 200, 2},
+            {266, 24_000, 200, 3}, {283, 36_000, 200, 3}, {300, 50_000, 240, 4}, {332, 80_000, 300, 6}};
+
+    private final BigInteger n, kn;
+    private final int size, m, threshold, s, aLo, aHi;
+    /** Factor-base indices of the first prime ≥ {@value #SMALL} and the first prime ≥ {@value #BLOCK}. */
+    private final int sieveFrom, bucketFrom;
+    private final int[] prime, sqrt;
+    private final byte[] logp;
+    private final boolean[] divK;
+    private final long largeBound;
+    private final double logTargetA;
+    private final SplittableRandom rnd = new SplittableRandom();
+    private final Set<BigInteger> usedA = new HashSet<>();
+    /** A prime of N met while building the factor base, if any. */
+    private BigInteger found;
+
+    private final List<Relation> relations = new ArrayList<>();
+    private final Map<Long, Relation> partials = new HashMap<>();
+    private final Set<BigInteger> seen = new HashSet<>();
+
+    /** (Ax + B)² ≡ A·g(x) (mod N): y, the factor-base indices of A·g(x) with multiplicity, and the large prime. */
+    private record Relation(BigInteger y, int[] factors, long large) {}
+
+    /**
+     * A proper factor of composite n, 1 if none was found after {@value #ROUNDS} rounds of
+     * sieving, or null once {@code stop} reports true. Perfect powers, which have no congruences
+     * of squares to find, are answered by their root.
+     */
+    static BigInteger factor(BigInteger n, int threads, BooleanSupplier stop) {
+        if (threads < 1) throw new IllegalArgumentException("threads must be >= 1");
+        if (!n.testBit(0)) return BigInteger.TWO;
+        for (int k : PrimeTable.primesUpTo(n.bitLength())) {
+            BigInteger r = root(n, k);
+            if (r.pow(k).equals(n)) return r;
+        }
+        Siqs q = new Siqs(n, multiplier(n));
+        if (q.found != null) return q.found;
+        int target = q.size + EXTRA;
+        for (int round = 0; round < ROUNDS; round++) {
+            if (!q.collect(target, threads, stop)) return stop.getAsBoolean() ? null : BigInteger.ONE;
+            BigInteger d = q.solve();
+            if (d != null) return d;
+            target = q.count() + q.size / 20 + EXTRA;
+        }
+        return BigInteger.ONE;
+    }
+
+    /** The Knuth–Schroeppel multiplier: the k ≤ 73 whose kN has the most small square residues. */
+    static int multiplier(BigInteger n) {
+        int[] ps = PrimeTable.primesUpTo(1_000);
+        int[] nmod = new int[ps.length];
+        for (int i = 1; i < ps.length; i++) nmod[i] = n.mod(BigInteger.valueOf(ps[i])).intValue();
+        int n8 = n.mod(BigInteger.valueOf(8)).intValue(), best = 1;
+        double bestScore = Double.NEGATIVE_INFINITY, ln2 = Math.log(2);
+        for (int k : MULTIPLIERS) {
+            double score = -0.5 * Math.log(k);
+            int kn8 = k * n8 & 7;
+            if (kn8 == 1) score += 2 * ln2;
+            else if (kn8 == 5) score += ln2;
+            else if ((kn8 & 3) == 3) score += 0.5 * ln2;
+            for (int i = 1; i < ps.length; i++) {
+                int p = ps[i];
+                if (k % p == 0) score += Math.log(p) / p;
+                else if (ModMath.powMod((long) nmod[i] * k % p, (p - 1) >>> 1, p) == 1) score += 2 * Math.log(p) / (p - 1);
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                best = k;
+            }
+        }
+        return best;
+    }
+
+    private Siqs(BigInteger n, int k) {
+        this.n = n;
+        this.kn = n.multiply(BigInteger.valueOf(k));
+        int bits = kn.bitLength();
+        int[] lo = PARAMS[0], hi = PARAMS[PARAMS.length - 1];
+        for (int i = 1; i < PARAMS.length; i++) {
+            if (bits <= PARAMS[i][0]) {
+                lo = PARAMS[i - 1];
+                hi = PARAMS[i];
+                break;
+            }
+            lo = hi = PARAMS[i];
+        }
+        double f = hi[0] == lo[0] ? 0 : Math.min(1, Math.max(0, (bits - lo[0]) / (double) (hi[0] - lo[0])));
+        int want = (int) (lo[1] + f * (hi[1] - lo[1]));
+        long lpMult = Math.round(lo[2] + f * (hi[2] - lo[2]));
+        m = (f < 0.5 ? lo[3] : hi[3]) * BLOCK;
+
+        // factor base: index 0 stands for −1, index 1 for 2, then odd primes with (kN / p) ≠ −1
+        int[] pr = new int[want], sq = new int[want];
+        boolean[] dk = new boolean[want];
+        pr[0] = -1;
+        pr[1] = 2;
+        int count = 2;
+        int[] table = PrimeTable.table(Math.max(1_000, (int) (2.5 * want * Math.log(want))));
+        for (int i = 1; count < want; i++) {
+            if (i == table.length) table = PrimeTable.table(2 * table[table.length - 1]);
+            int p = table[i];
+            long r = kn.mod(BigInteger.valueOf(p)).longValue();
+            if (r == 0) {
+                if (k % p != 0) {
+                    found = BigInteger.valueOf(p);
+                    break;
+                }
+                dk[count] = true;
+            } else if ((r = ModMath.sqrtMod(r, p)) < 0) {
+                continue;
+            }
+            pr[count] = p;
+            sq[count++] = (int) r;
+        }
+        size = count;
+        prime = pr;
+        sqrt = sq;
+        divK = dk;
+        int pmax = prime[size - 1];
+        largeBound = Math.min(Integer.MAX_VALUE, lpMult * pmax);
+        // logs are scaled so that the threshold stays below 128 and sieve bytes cannot wrap into it
+        double logMax = Math.log(m) / Math.log(2) + 0.5 * (kn.bitLength() - 1);
+        double scale = Math.min(1, 120 / logMax) / Math.log(2);
+        int i0 = 2;
+        while (i0 < size && prime[i0] < SMALL) i0++;
+        sieveFrom = i0;
+        while (i0 < size && prime[i0] < BLOCK) i0++;
+        bucketFrom = i0;
+        logp = new byte[size];
+        for (int i = 1; i < size; i++) logp[i] = (byte) Math.round(Math.log(prime[i]) * scale);
+        threshold = (int) Math.round((logMax * Math.log(2) - Math.log(largeBound) - SLACK) * scale);
+
+        // A ≈ √(2kN) / M from s primes of similar size, away from the unsieved small ones; s grows
+        // until the typical prime sits in the lower three quarters of the base, so that s − 1 picks
+        // around it leave a last prime the base still holds
+        logTargetA = 0.5 * (kn.bitLength() * Math.log(2) + Math.log(2)) - Math.log(m);
+        int first = 2;
+        while (first < size && prime[first] < 3 * SMALL) first++;
+        double qPref = Math.log(Math.min(2_000, prime[Math.max(first, size / 2)]));
+        double qMax = Math.log(prime[Math.min(size - 1, Math.max(first, 3 * size / 4))]);
+        s = Math.max(1, Math.max((int) Math.round(logTargetA / qPref), (int) Math.ceil(logTargetA / qMax)));
+        int center = Arrays.binarySearch(prime, 2, size, (int) Math.min(Integer.MAX_VALUE, Math.exp(logTargetA / s)));
+        center = Math.max(first, Math.min(size - 1, center < 0 ? -center - 1 : center));
+        int span = Math.max(s + 8, center / 3);
+        aLo = Math.max(first, center - span);
+        aHi = Math.max(aLo + 1, Math.min(size, center + span));
+    }
+
+    private synchronized int count() {
+        return relations.size();
+    }
+
+    /** Sieves until {@code target} relations are in: false if stopped or out of polynomials first. */
+    private boolean collect(int target, int threads, BooleanSupplier stop) {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Runnable work = () -> {
+            try {
+                new Worker().run(target, stop);
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            }
+        };
+        if (threads == 1) {
+            work.run();
+        } else {
+            Thread[] ts = new Thread[threads];
+            for (int i = 0; i < threads; i++) {
+                ts[i] = new Thread(work, "primely-siqs-" + i);
+                ts[i].setDaemon(true);
+                ts[i].start();
+            }
+            try {
+                for (Thread t : ts) t.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted while sieving", e);
+            }
+        }
+        if (failure.get() != null) throw new IllegalStateException("sieving failed", failure.get());
+        return count() >= target;
+    }
+
+    /** Indices of the primes for a fresh A, or null when no unused A turns up. */
+    private synchronized int[] nextA() {
+        for (int attempt = 0; attempt < 1_000; attempt++) {
+            int[] idx = new int[s];
+            double logA = 0;
+            int picked = 0;
+            while (picked < s - 1) {
+                int i = aLo + rnd.nextInt(aHi - aLo);
+                if (contains(idx, picked, i)) continue;
+                idx[picked++] = i;
+                logA += Math.log(prime[i]);
+            }
+            double need = Math.exp(logTargetA - logA);
+            if (need > prime[size - 1]) continue;
+            int last = Arrays.binarySearch(prime, 2, size, (int) need);
+            if (last < 0) last = -last - 1;
+            if (last >= size || (last > 2 && need - prime[last - 1] < prime[last] - need)) last--;
+            if (last < aLo / 2 || last < 2 || contains(idx, picked, last)) continue;
+            idx[s - 1] = last;
+            Arrays.sort(idx);
+            BigInteger a = BigInteger.ONE;
+            for (int i : idx) a = a.multiply(BigInteger.valueOf(prime[i]));
+            if (usedA.add(a)) return idx;
+        }
+        return null;
+    }
+
+    private static boolean contains(int[] a, int len, int v) {
+        for (int i = 0; i < len; i++) if (a[i] == v) return true;
+        return false;
+    }
+
+    private synchronized void add(BigInteger y, int[] factors, long large) {
+        if (!seen.add(y)) return;
+        if (large == 1) {
+            relations.add(new Relation(y, factors, 1));
+            return;
+        }
+        Relation other = partials.putIfAbsent(large, new Relation(y, factors, large));
+        if (other == null) return;
+        int[] both = Arrays.copyOf(other.factors, other.factors.length + factors.length);
+        System.arraycopy(factors, 0, both, other.factors.length, factors.length);
+        relations.add(new Relation(y.multiply(other.y).mod(n), both, large));
+    }
+
+    /** Linear algebra and square roots: a proper factor, or null if more relations are needed. */
+    private BigInteger solve() {
+        Relation[] rels;
+        synchronized (this) {
+            rels = relations.toArray(new Relation[0]);
+        }
+        int[][] odd = new int[rels.length][];
+        int[] weight = new int[size];
+        for (int j = 0; j < rels.length; j++) {
+            int[] f = rels[j].factors.clone();
+            Arrays.sort(f);
+            int len = 0;
+            for (int i = 0; i < f.length; ) {
+                int e = i;
+                while (e < f.length && f[e] == f[i]) e++;
+                if (((e - i) & 1) != 0) f[len++] = f[i];
+                i = e;
+            }
+            odd[j] = Arrays.copyOf(f, len);
+            for (int r : odd[j]) weight[r]++;
+        }
+        // prune columns holding a row no other column has, until none is left
+        boolean[] dead = new boolean[rels.length];
+        for (boolean changed = true; changed; ) {
+            changed = false;
+            for (int j = 0; j < rels.length; j++) {
+                if (dead[j]) continue;
+                for (int r : odd[j]) {
+                    if (weight[r] == 1) {
+                        dead[j] = changed = true;
+                        for (int r2 : odd[j]) weight[r2]--;
+                        break;
+                    }
+                }
+            }
+        }
+        int[] row = new int[size];
+        int nrows = 0;
+        for (int r = 0; r < size; r++) row[r] = weight[r] > 0 ? nrows++ : -1;
+        List<Integer> keep = new ArrayList<>();
+        for (int j = 0; j < rels.length; j++) if (!dead[j]) keep.add(j);
+        if (keep.size() < nrows + 16) return null;
+        int[][] cols = new int[keep.size()][];
+        for (int c = 0; c < cols.length; c++) {
+            int[] o = odd[keep.get(c)];
+            cols[c] = new int[o.length];
+            for (int i = 0; i < o.length; i++) cols[c][i] = row[o[i]];
+        }
+
+        long[] deps = NullSpace.find(nrows, cols, rnd.split());
+        for (int d = 0; d < 64; d++) {
+            long bit = 1L << d;
+            BigInteger x = BigInteger.ONE, y = BigInteger.ONE;
+            int[] exp = new int[size];
+            boolean any = false;
+            for (int c = 0; c < cols.length; c++) {
+                if ((deps[c] & bit) == 0) continue;
+                any = true;
+                Relation rel = rels[keep.get(c)];
+                x = x.multiply(rel.y).mod(n);
+                for (int i : rel.factors) exp[i]++;
+                if (rel.large != 1) y = y.multiply(BigInteger.valueOf(rel.large)).mod(n);
+            }
+            if (!any) continue;
+            for (int i = 1; i < size; i++) {
+                if (exp[i] == 0) continue;
+                y = y.multiply(BigInteger.valueOf(prime[i]).modPow(BigInteger.valueOf(exp[i] >>> 1), n)).mod(n);
+            }
+            BigInteger g = x.subtract(y).gcd(n);
+            if (!g.equals(BigInteger.ONE) && !g.equals(n)) return g;
+        }
+        return null;
+    }
+
+    /** Per-thread sieve state for one A at a time. */
+    private final class Worker {
+        private final byte[] sieve = new byte[BLOCK];
+        private final int[] root1 = new int[size], root2 = new int[size], pos1 = new int[size], pos2 = new int[size];
+        private final int[][] delta = new int[s][size];
+        private final boolean[] skip = new boolean[size];
+        private final BigInteger[] bl = new BigInteger[s];
+        private final boolean[] negated = new boolean[s];
+        private final int[] hits = new int[64];
+        /** Hits of the primes above the block size, per block: offset in the block | index << 15. */
+        private final int[][] bucket = new int[2 * m / BLOCK][2 * (size - bucketFrom)];
+        private final int[] fill = new int[bucket.length];
+        private int[] aIdx;
+        private BigInteger a, b, c;
+
+        void run(int target, BooleanSupplier stop) {
+            while (count() < target && !stop.getAsBoolean()) {
+                aIdx = nextA();
+                if (aIdx == null) return;
+                initA();
+                int polys = 1 << (s - 1);
+                for (int j = 0; j < polys; j++) {
+                    if (j > 0) nextB(Integer.numberOfTrailingZeros(j));
+                    sievePoly();
+                    if ((j & 15) == 15 && (count() >= target || stop.getAsBoolean())) return;
+                }
+            }
+        }
+
+        /** B = Σ B_l with B_l ≡ ±√kN (mod q_l) and ≡ 0 mod the other q; roots and switching deltas. */
+        private void initA() {
+            a = BigInteger.ONE;
+            for (int i : aIdx) a = a.multiply(BigInteger.valueOf(prime[i]));
+            b = BigInteger.ZERO;
+            long[] gamma = new long[s];
+            for (int l = 0; l < s; l++) {
+                long q = prime[aIdx[l]], rest = 1;
+                for (int j = 0; j < s; j++) if (j != l) rest = rest * (prime[aIdx[j]] % q) % q;
+                long g = sqrt[aIdx[l]] * inverse(rest, q) % q;
+                if (g > q / 2) g = q - g;
+                gamma[l] = g;
+                bl[l] = a.divide(BigInteger.valueOf(q)).multiply(BigInteger.valueOf(g));
+                b = b.add(bl[l]);
+                negated[l] = false;
+            }
+            c = b.multiply(b).subtract(kn).divide(a);
+            System.arraycopy(divK, 0, skip, 0, size);
+            skip[0] = skip[1] = true;
+            for (int i : aIdx) {
+                skip[i] = true;
+                root1[i] = root2[i] = -1;
+            }
+            long[] pre = new long[s + 1];
+            for (int i = 2; i < size; i++) {
+                if (root1[i] == -1 && contains(aIdx, s, i)) continue;
+                long p = prime[i];
+                pre[0] = 1;
+                for (int l = 0; l < s; l++) pre[l + 1] = pre[l] * (prime[aIdx[l]] % p) % p;
+                long ainv = inverse(pre[s], p), bmod = 0, suf = 1;
+                for (int l = s - 1; l >= 0; l--) {
+                    long blp = pre[l] * suf % p * gamma[l] % p;       // B_l = (A / q_l)·γ_l
+                    suf = suf * (prime[aIdx[l]] % p) % p;
+                    bmod += blp;
+                    delta[l][i] = (int) (2 * blp % p * ainv % p);
+                }
+                bmod %= p;
+                long t = sqrt[i], shift = m % p;
+                root1[i] = (int) ((ainv * ((t - bmod + p) % p) + shift) % p);
+                root2[i] = (int) ((ainv * ((2 * p - t - bmod) % p) + shift) % p);
+            }
+        }
+
+        /** Flips the sign of B_v in B and moves every root by the matching delta. */
+        private void nextB(int v) {
+            BigInteger twice = bl[v].shiftLeft(1);
+            boolean up = negated[v];
+            b = up ? b.add(twice) : b.subtract(twice);
+            negated[v] = !up;
+            c = b.multiply(b).subtract(kn).divide(a);
+            int[] dv = delta[v];
+            for (int i = 2; i < size; i++) {
+                if (root1[i] < 0) continue;
+                int p = prime[i], d = up ? p - dv[i] : dv[i];
+                int r1 = root1[i] + d, r2 = root2[i] + d;
+                root1[i] = r1 >= p ? r1 - p : r1;
+                root2[i] = r2 >= p ? r2 - p : r2;
+            }
+        }
+
+        private void sievePoly() {
+            System.arraycopy(root1, 0, pos1, 0, bucketFrom);
+            System.arraycopy(root2, 0, pos2, 0, bucketFrom);
+            Arrays.fill(fill, 0);
+            int len = 2 * m;
+            for (int i = bucketFrom; i < size; i++) {
+                if (skip[i]) continue;
+                int p = prime[i];
+                for (int q = root1[i]; q < len; q += p) bucket[q >>> 15][fill[q >>> 15]++] = q & (BLOCK - 1) | i << 15;
+                for (int q = root2[i]; q < len; q += p) bucket[q >>> 15][fill[q >>> 15]++] = q & (BLOCK - 1) | i << 15;
+            }
+            byte init = (byte) (128 - threshold);
+            for (int start = 0; start < len; start += BLOCK) {
+                Arrays.fill(sieve, init);
+                byte[] sv = sieve;
+                int[] bk = bucket[start >>> 15];
+                for (int e = 0, end = fill[start >>> 15]; e < end; e++) sv[bk[e] & (BLOCK - 1)] += logp[bk[e] >>> 15];
+                for (int i = sieveFrom; i < bucketFrom; i++) {
+                    if (skip[i]) continue;
+                    int p = prime[i];
+                    byte lg = logp[i];
+                    int q = pos1[i] - start;
+                    for (; q < sv.length; q += p) sv[q] += lg;
+                    pos1[i] = q + start;
+                    q = pos2[i] - start;
+                    for (; q < sv.length; q += p) sv[q] += lg;
+                    pos2[i] = q + start;
+                }
+                for (int w = 0; w < BLOCK; w += 8) {
+                    if (((long) LONGS.get(sieve, w) & 0x8080808080808080L) == 0) continue;
+                    for (int k = w; k < w + 8; k++) if (sieve[k] < 0) divide(start + k);
+                }
+            }
+        }
+
+        /** Trial divides g at sieve index idx (x = idx − M) and records a full or partial relation. */
+        private void divide(int idx) {
+            BigInteger x = BigInteger.valueOf(idx - m);
+            BigInteger g = a.multiply(x).add(b.shiftLeft(1)).multiply(x).add(c);
+            if (g.signum() == 0) return;
+            int nh = 0;
+            int[] f = new int[32];
+            int nf = 0;
+            if (g.signum() < 0) {
+                f[nf++] = 0;
+                g = g.negate();
+            }
+            int tz = g.getLowestSetBit();
+            g = g.shiftRight(tz);
+            for (int i = 0; i < tz; i++) {
+                if (nf == f.length) f = Arrays.copyOf(f, 2 * nf);
+                f[nf++] = 1;
+            }
+            for (int i : aIdx) {
+                if (nf == f.length) f = Arrays.copyOf(f, 2 * nf);
+                f[nf++] = i;
+                hits[nh++] = i;                 // q may also divide g
+            }
+            for (int i = 2; i < bucketFrom; i++) {
+                int r = idx % prime[i];
+                if (r == root1[i] || r == root2[i]) {
+                    if (nh == hits.length) return;
+                    hits[nh++] = i;
+                }
+            }
+            int[] bk = bucket[idx >>> 15];
+            for (int e = 0, end = fill[idx >>> 15], off = idx & (BLOCK - 1); e < end; e++) {
+                if ((bk[e] & (BLOCK - 1)) != off) continue;
+                if (nh == hits.length) return;
+                hits[nh++] = bk[e] >>> 15;
+            }
+            long rest = 0;
+            boolean small = g.bitLength() < 63;
+            if (small) rest = g.longValue();
+            for (int h = 0; h < nh; h++) {
+                int i = hits[h];
+                long p = prime[i];
+                while (true) {
+                    if (!small) {
+                        BigInteger[] qr = g.divideAndRemainder(BigInteger.valueOf(p));
+                        if (qr[1].signum() != 0) break;
+                        g = qr[0];
+                        if (g.bitLength() < 63) {
+                            small = true;
+                            rest = g.longValue();
+                        }
+                    } else {
+                        if (rest % p != 0) break;
+                        rest /= p;
+                    }
+                    if (nf == f.length) f = Arrays.copyOf(f, 2 * nf);
+                    f[nf++] = i;
+                }
+            }
+            if (!small || rest >= largeBound) return;
+            add(a.multiply(x).add(b).mod(n), Arrays.copyOf(f, nf), rest);
+        }
+    }
+
+    /** ⌊n^(1/k)⌋ by Newton's iteration from above. */
+    static BigInteger root(BigInteger n, int k) {
+        BigInteger x = BigInteger.ONE.shiftLeft(n.bitLength() / k + 1), km1 = BigInteger.valueOf(k - 1), bk = BigInteger.valueOf(k);
+        while (true) {
+            BigInteger y = km1.multiply(x).add(n.divide(x.pow(k - 1))).divide(bk);
+            if (y.compareTo(x) >= 0) return x;
+            x = y;
+        }
+    }
+
+    /** a⁻¹ mod p for p prime and a ≢ 0. */
+    private static long inverse(long a, long p) {
+        long t = 0, newT = 1, r = p, newR = a % p;
+        while (newR != 0) {
+            long q = r / newR, tmp = t - q * newT;
+            t = newT;
+            newT = tmp;
+            tmp = r - q * newR;
+            r = newR;
+            newR = tmp;
+        }
+        return t < 0 ? t + p : t;
+    }
+}
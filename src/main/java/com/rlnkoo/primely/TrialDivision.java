@@ -0,0 +1,129 @@
+package com.rlnkoo.primely;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Trial-division pre-filter for big integers.
+ *
+ * Small primes are packed into groups whose product stays below 2^31. n is unpacked into 32-bit
+ * limbs once and reduced modulo each group product with plain {@code long} arithmetic; the
+ * per-prime checks then run on those word-sized remainders. No BigInteger is created per prime.
+ */
+public final class TrialDivision {
+    private static final long GROUP_LIMIT = 1L << 31;
+
+    /** Prime-table prefix [0, ends[g]) split into groups g; products[g] is the group's product. */
+    private record Groups(int bound, int[] primes, int[] ends, long[] products) {}
+
+    private static volatile Groups groups = build(10_000);
+
+    private TrialDivision() {}
+
+    /** True iff some prime p ≤ bound divides n and p ≠ |n|. */
+    public static boolean hasSmallFactor(BigInteger n, int bound) {
+        if (n.signum() == 0) return true;
+        Groups g = groups(bound);
+        int[] limbs = limbs(n);
+        boolean small = n.bitLength() < 32;
+        int nInt = small ? n.abs().intValue() : -1;
+        for (int k = 0, from = 0; k < g.ends.length && g.primes[from] <= bound; from = g.ends[k++]) {
+            long r = residue(limbs, g.products[k]);
+            for (int i = from; i < g.ends[k]; i++) {
+                int p = g.primes[i];
+                if (p > bound) break;
+                if (r % p == 0 && p != nInt) return true;
+            }
+        }
+        return false;
+    }
+
+    /** Distinct primes p ≤ bound dividing n, ascending (includes |n| itself when it is such a prime). */
+    public static int[] smallFactors(BigInteger n, int bound) {
+        if (n.signum() == 0) throw new IllegalArgumentException("every prime divides 0");
+        Groups g = groups(bound);
+        int[] limbs = limbs(n);
+        int[] out = new int[8];
+        int cnt = 0;
+        for (int k = 0, from = 0; k < g.ends.length && g.primes[from] <= bound; from = g.ends[k++]) {
+            long r = residue(limbs, g.products[k]);
+            for (int i = from; i < g.ends[k]; i++) {
+                int p = g.primes[i];
+                if (p > bound) break;
+                if (r % p == 0) {
+                    if (cnt == out.length) out = Arrays.copyOf(out, cnt * 2);
+                    out[cnt++] = p;
+                }
+            }
+        }
+        return Arrays.copyOf(out, cnt);
+    }
+
+    /**
+     * n mod p for every prime p ≤ bound, in {@link PrimeTable} order (out[0] is n mod 2).
+     * Returns how many residues were written. Negative n gives the non-negative residue.
+     */
+    static int residues(BigInteger n, int bound, int[] out) {
+        Groups g = groups(bound);
+        int[] limbs = limbs(n);
+        int cnt = 0;
+        for (int k = 0, from = 0; k < g.ends.length && g.primes[from] <= bound; from = g.ends[k++]) {
+            long r = residue(limbs, g.products[k]);
+            for (int i = from; i < g.ends[k]; i++) {
+                int p = g.primes[i];
+                if (p > bound) break;
+                int x = (int) (r % p);
+                out[cnt++] = n.signum() < 0 && x != 0 ? p - x : x;
+            }
+        }
+        return cnt;
+    }
+
+    /** Big-endian 32-bit limbs of |n|. */
+    static int[] limbs(BigInteger n) {
+        byte[] b = n.abs().toByteArray();
+        int[] r = new int[(b.length + 3) >>> 2];
+        int k = r.length - 1, shift = 0;
+        for (int i = b.length - 1; i >= 0; i--) {
+            r[k] |= (b[i] & 0xFF) << shift;
+            shift += 8;
+            if (shift == 32) { shift = 0; k--; }
+        }
+        return r;
+    }
+
+    /** Horner reduction of big-endian limbs modulo m < 2^31. */
+    static long residue(int[] limbs, long m) {
+        long r = 0;
+        for (int x : limbs) r = ((r << 32) | (x & 0xFFFFFFFFL)) % m;
+        return r;
+    }
+
+    private static Groups groups(int bound) {
+        Groups g = groups;
+        if (bound <= g.bound) return g;
+        synchronized (TrialDivision.class) {
+            g = groups;
+            if (bound > g.bound) {
+                groups = g = build((int) Math.min(Integer.MAX_VALUE - 1L, Math.max(bound, 2L * g.bound)));
+            }
+            return g;
+        }
+    }
+
+    private static Groups build(int bound) {
+        int[] ps = PrimeTable.primesUpTo(bound);
+        int[] ends = new int[ps.length];
+        long[] products = new long[ps.length];
+        int k = 0;
+        long prod = 1;
+        for (int i = 0; i < ps.length; i++) {
+            if (prod * ps[i] >= GROUP_LIMIT) {
+                products[k] = prod; ends[k++] = i; prod = 1;
+            }
+            prod *= ps[i];
+        }
+        if (prod > 1) { products[k] = prod; ends[k++] = ps.length; }
+        return new Groups(bound, ps, Arrays.copyOf(ends, k), Arrays.copyOf(products, k));
+    }
+}
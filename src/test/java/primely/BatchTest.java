@@ -0,0 +1,38 @@
+package primely;
+
+import com.rlnkoo.primely.Primes;
+import org.junit.jupiter.api.Test;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchTest {
+
+    @Test void testAllLongsMatchesSingleCalls() {
+        SplittableRandom rnd = new SplittableRandom(7);
+        long[] in = new long[10_007];
+        for (int i = 0; i < in.length; i++) in[i] = i % 3 == 0 ? i : rnd.nextLong(Long.MAX_VALUE);
+        BitSet out = new BitSet();
+        out.set(in.length + 5);
+        Primes.testAll(in, out);
+        for (int i = 0; i < in.length; i++) assertEquals(Primes.isPrimeDet64(in[i]), out.get(i), "n=" + in[i]);
+        assertTrue(out.get(in.length + 5), "bits past the input are untouched");
+    }
+
+    @Test void testAllBigIntegers() {
+        List<BigInteger> in = new ArrayList<>();
+        for (int i = 0; i < 300; i++) in.add(BigInteger.TWO.pow(89).subtract(BigInteger.valueOf(i)));
+        BitSet out = new BitSet();
+        Primes.testAll(in, out);
+        for (int i = 0; i < in.size(); i++) assertEquals(Primes.isPrimeBPSW(in.get(i)), out.get(i));
+        assertTrue(out.get(1), "2^89 - 1 is a Mersenne prime");
+    }
+
+    @Test void filterPrimesParallelStream() {
+        assertEquals(78_498, Primes.filterPrimes(LongStream.range(0, 1_000_000).parallel()).count());
+    }
+}
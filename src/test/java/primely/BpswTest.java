@@ -1,8 +1,10 @@
 package primely;
 
 import com.rlnkoo.primely.Primes;
+import com.rlnkoo.primely.Sieve;
 import org.junit.jupiter.api.Test;
 import java.math.BigInteger;
+import java.util.Random;
 import static org.junit.jupiter.api.Assertions.*;
 
 class BpswTest {
@@ -18,8 +20,31 @@ class BpswTest {
         assertFalse(Primes.isPrimeBPSW(BigInteger.valueOf(100)));
     }
 
+    @Test void agreesWithIsProbablePrime() {
+        Random rnd = new Random(9);
+        for (int i = 0; i < 200; i++) {
+            BigInteger p = BigInteger.probablePrime(80 + rnd.nextInt(400), rnd);
+            assertTrue(Primes.isPrimeBPSW(p), "prime " + p);
+            BigInteger c = new BigInteger(80 + rnd.nextInt(400), rnd).setBit(0);
+            assertEquals(c.isProbablePrime(60), Primes.isPrimeBPSW(c), "n=" + c);
+        }
+    }
+
     @Test void nextPrimeWorks() {
         assertEquals(BigInteger.valueOf(2), Primes.nextPrime(BigInteger.ONE));
         assertEquals(new BigInteger("101"), Primes.nextPrime(new BigInteger("100")));
     }
-}
\ No newline at end of file
+
+    @Test void primesFromMatchesNextProbablePrime() {
+        long[] small = Primes.primesFrom(BigInteger.ZERO).limit(25).mapToLong(BigInteger::longValueExact).toArray();
+        assertArrayEquals(Sieve.primesBetween(0, 100).toArray(), small);
+
+        BigInteger x = BigInteger.TEN.pow(40);
+        var it = Primes.primesFrom(x).iterator();
+        for (int i = 0; i < 30; i++) {
+            x = x.nextProbablePrime();
+            assertEquals(x, it.next());
+        }
+        assertEquals(new BigInteger("1000000000000000000000000000057"), Primes.nextPrime(BigInteger.TEN.pow(30)));
+    }
+}
@@ -0,0 +1,59 @@
+package primely;
+
+import com.rlnkoo.primely.BigCache;
+import com.rlnkoo.primely.Caches;
+import com.rlnkoo.primely.Factorizer;
+import com.rlnkoo.primely.Primes;
+import com.rlnkoo.primely.Proofs;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import java.math.BigInteger;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheTest {
+
+    @AfterEach void restoreDefaults() {
+        Caches.configure(Caches.DEFAULT_ENTRIES, false);
+    }
+
+    @Test void lruEvictsLeastRecentlyUsed() {
+        var cache = new BigCache<String>(1);
+        cache.put(BigInteger.ONE, "one");
+        cache.put(BigInteger.TWO, "two");
+        assertNull(cache.get(BigInteger.ONE));
+        assertEquals("two", cache.get(BigInteger.TWO));
+        assertEquals(new BigCache.Stats(1, 1, 1, 1), cache.stats());
+
+        var big = new BigCache<Integer>(100);
+        for (int i = 0; i < 1_000; i++) big.put(BigInteger.valueOf(i), i);
+        assertTrue(big.stats().size() <= 100);
+        assertEquals(900, big.stats().evictions());
+        assertEquals(7, big.computeIfAbsent(BigInteger.valueOf(-7), k -> -k.intValue()));
+        assertEquals(7, big.get(BigInteger.valueOf(-7)));
+        assertThrows(IllegalArgumentException.class, () -> new BigCache<>(0));
+    }
+
+    @Test void repeatedFactorizationIsALookup() {
+        for (boolean serialized : new boolean[]{false, true}) {
+            Caches.configure(64, serialized);
+            var n = BigInteger.TEN.pow(22).nextProbablePrime().multiply(BigInteger.valueOf(1_000_000_007L));
+            var first = Factorizer.factor(n);
+            var second = Factorizer.factor(n);
+            assertEquals(first, second);
+            assertEquals(1, Caches.factorizations().stats().hits());
+            assertEquals(first, Factorizer.factorAsync(n, com.rlnkoo.primely.FactorOptions.DEFAULT).join());
+            assertEquals(serialized, Caches.factorizations().serialized());
+        }
+    }
+
+    @Test void repeatedCertificateIsALookup() {
+        Caches.configure(64, true);
+        var p = BigInteger.valueOf(2).pow(89).subtract(BigInteger.ONE);        // Mersenne prime
+        var pratt = Proofs.provePratt(p).orElseThrow();
+        assertEquals(pratt, Proofs.provePratt(p).orElseThrow());
+        var q = new BigInteger("719");
+        var pock = Primes.provePocklington(q).orElseThrow();
+        assertEquals(pock, Primes.provePocklington(q).orElseThrow());
+        assertEquals(2, Caches.certificates().stats().hits());
+    }
+}
@@ -2,6 +2,8 @@ package primely;
 
 import com.rlnkoo.primely.Primes;
 import org.junit.jupiter.api.Test;
+import java.math.BigInteger;
+import java.util.SplittableRandom;
 import static org.junit.jupiter.api.Assertions.*;
 
 class Deterministic64Test {
@@ -15,4 +17,32 @@ class Deterministic64Test {
         long[] comps = {1,4,6,8,9,12,15,25,100,221,341,561,1105};
         for (long n : comps) assertFalse(Primes.isPrimeDet64(n), "Should be composite: " + n);
     }
-}
\ No newline at end of file
+
+    @Test void strongPseudoprimesToSmallBases() {
+        long[] spsp = {
+                2047L, 1373653L, 25326001L, 3215031751L, 2152302898747L, 3474749660383L,
+                341550071728321L, 3825123056546413051L, 1194649L, 12327121L, 4294967297L
+        };
+        for (long n : spsp) assertFalse(Primes.isPrimeDet64(n), "Should be composite: " + n);
+    }
+
+    @Test void largePrimesNear2to63() {
+        assertTrue(Primes.isPrimeDet64(9223372036854775783L));
+        assertTrue(Primes.isPrimeDet64(4294967291L));
+        assertTrue(Primes.isPrimeDet64(4294967311L));
+        assertFalse(Primes.isPrimeDet64(Long.MAX_VALUE));
+        assertFalse(Primes.isPrimeDet64(4294967291L * 4294967291L));
+    }
+
+    @Test void agreesWithBigIntegerReference() {
+        SplittableRandom rnd = new SplittableRandom(42);
+        for (int i = 0; i < 20_000; i++) {
+            long n = i < 10_000 ? rnd.nextLong(1L << 32) : rnd.nextLong(Long.MAX_VALUE);
+            boolean expected = BigInteger.valueOf(n).isProbablePrime(50);
+            assertEquals(expected, Primes.isPrimeDet64(n), "n=" + n);
+        }
+        for (long n = 0; n < 100_000; n++) {
+            assertEquals(BigInteger.valueOf(n).isProbablePrime(50), Primes.isPrimeDet64(n), "n=" + n);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package primely;
+
+import com.rlnkoo.primely.FactorSieve;
+import com.rlnkoo.primely.Factorizer;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FactorSieveTest {
+
+    @Test void productsAndPrimalityAcrossSegments() {
+        long from = 1_000_000_000_000L - 70_000, to = 1_000_000_000_000L + 70_000;
+        AtomicLong seen = new AtomicLong();
+        FactorSieve.forEach(from, to, true, f -> {
+            long prod = 1;
+            for (int i = 0; i < f.count(); i++) {
+                if (i > 0) assertTrue(f.prime(i) > f.prime(i - 1));
+                for (int e = 0; e < f.exponent(i); e++) prod *= f.prime(i);
+            }
+            assertEquals(f.n(), prod);
+            assertEquals(BigInteger.valueOf(f.n()).isProbablePrime(30), f.isPrime(), f::toString);
+            seen.incrementAndGet();
+        });
+        assertEquals(to - from, seen.get());
+    }
+
+    @Test void sequentialIsAscendingAndMatchesFactorizer() {
+        long[] next = {1};
+        FactorSieve.forEach(0, 5_000, f -> {
+            assertEquals(next[0]++, f.n());
+            if (f.n() > 1) assertEquals(Factorizer.factor(BigInteger.valueOf(f.n())).factors(), f.toFactorization().factors());
+        });
+        assertEquals(5_000, next[0]);
+    }
+
+    @Test void totientAndMoebiusSums() {
+        long[] phi = FactorSieve.totients(1, 1001);
+        byte[] mu = FactorSieve.moebius(1, 1001);
+        long sumPhi = 0, mertens = 0;
+        for (long v : phi) sumPhi += v;
+        for (byte v : mu) mertens += v;
+        assertEquals(304_192, sumPhi);
+        assertEquals(2, mertens);
+        assertEquals(1, phi[0]);
+        assertEquals(1, mu[0]);
+
+        byte[] big = FactorSieve.moebius(1, 1_000_001);
+        long m = 0;
+        for (byte v : big) m += v;
+        assertEquals(212, m);
+    }
+}
@@ -1,9 +1,14 @@
 package primely;
 
+import com.rlnkoo.primely.FactorOptions;
+import com.rlnkoo.primely.Factorization;
+import com.rlnkoo.primely.Factorization.Status;
 import com.rlnkoo.primely.Factorizer;
 import org.junit.jupiter.api.Test;
 import java.math.BigInteger;
+import java.time.Duration;
 import java.util.Map;
+import java.util.SplittableRandom;
 import static org.junit.jupiter.api.Assertions.*;
 
 class FactorizerTest {
@@ -26,4 +31,187 @@ class FactorizerTest {
         assertTrue(f.complete());
         assertEquals(1, f.factors().get(p));
     }
-}
\ No newline at end of file
+
+    @Test void factorSemiprimeBeyondTrialDivision() {
+        var p = new BigInteger("1000000007");
+        var q = new BigInteger("998244353");
+        var f = Factorizer.factor(p.multiply(q));
+        assertEquals(1, f.factors().get(p));
+        assertEquals(1, f.factors().get(q));
+    }
+
+    @Test void factorLongKnownValues() {
+        assertEquals("1", Factorizer.factor(1L).toString());
+        var f = Factorizer.factor(Long.MAX_VALUE);      // 7² · 73 · 127 · 337 · 92737 · 649657
+        assertArrayEquals(new long[]{7, 73, 127, 337, 92_737, 649_657}, f.primes());
+        assertArrayEquals(new int[]{2, 1, 1, 1, 1, 1}, f.exponents());
+        assertEquals(Long.MAX_VALUE, f.reconstruct());
+        assertArrayEquals(new long[]{2_147_483_647L, 4_294_967_291L}, Factorizer.factor(4_294_967_291L * 2_147_483_647L).primes());
+        var cube = Factorizer.factor(1_000_003L * 1_000_003L * 1_000_003L);
+        assertArrayEquals(new long[]{1_000_003L}, cube.primes());
+        assertArrayEquals(new int[]{3}, cube.exponents());
+        assertEquals(Map.of(BigInteger.valueOf(-1), 1, BigInteger.TWO, 1, BigInteger.valueOf(3), 2),
+                Factorizer.factor(BigInteger.valueOf(-18)).factors());
+    }
+
+    @Test void factorLongRandomInputs() {
+        var rnd = new SplittableRandom(42);
+        for (int i = 0; i < 2_000; i++) {
+            long n = rnd.nextLong(1, Long.MAX_VALUE) >>> rnd.nextInt(0, 40);
+            var f = Factorizer.factor(n);
+            assertEquals(n, f.reconstruct(), () -> Long.toString(n));
+            for (long p : f.primes()) assertTrue(BigInteger.valueOf(p).isProbablePrime(40), () -> n + ": " + p);
+        }
+        // semiprimes below 2^40 go through SQUFOF
+        long q = 524_309;
+        for (long p = 1_048_583; p < 1_049_000; p += 2) {
+            if (!BigInteger.valueOf(p).isProbablePrime(40)) continue;
+            assertArrayEquals(new long[]{q, p}, Factorizer.factor(p * q).primes());
+        }
+    }
+
+    @Test void parallelRhoFindsFactorAndTimesOut() {
+        var p = new BigInteger("1000000000039");
+        var q = new BigInteger("1000000000061");
+        BigInteger d = Factorizer.rhoBrent(p.multiply(q), 4, 64, Duration.ofMinutes(1)).orElseThrow();
+        assertTrue(d.equals(p) || d.equals(q), d::toString);
+
+        // two 40-digit primes: far out of reach, so the deadline has to stop the walks
+        var big = BigInteger.TEN.pow(39).nextProbablePrime().multiply(BigInteger.TEN.pow(39).add(BigInteger.valueOf(7)).nextProbablePrime());
+        assertTrue(Factorizer.rhoBrent(big, 2, 128, Duration.ofMillis(200)).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> Factorizer.rhoBrentAsync(big, 1, 100, null));
+    }
+
+    @Test void pMinus1Stages() {
+        var mersenne = BigInteger.TWO.pow(127).subtract(BigInteger.ONE);   // q − 1 has a 77 158 673 929 factor
+        // p − 1 = 2 · k · (primes ≤ 97)  with k small: caught in stage 1
+        var smooth = smoothPlusOne(BigInteger.TWO.multiply(com.rlnkoo.primely.PrimeTable.primorial(97)));
+        assertEquals(smooth, Factorizer.pollardPMinus1(smooth.multiply(mersenne), 1_000, 1_000));
+
+        // p − 1 = 2 · k · 1 000 003: needs stage 2 with B2 ≥ 1 000 003
+        var oneLarge = smoothPlusOne(BigInteger.valueOf(2 * 1_000_003L));
+        var n = oneLarge.multiply(mersenne);
+        assertEquals(BigInteger.ONE, Factorizer.pollardPMinus1(n, 1_000, 1_000));
+        assertEquals(oneLarge, Factorizer.pollardPMinus1(n, 1_000, 2_000_000));
+    }
+
+    @Test void ecmFindsMidSizeFactor() {
+        var p = BigInteger.TEN.pow(17).nextProbablePrime();             // 18 digits
+        var q = BigInteger.TEN.pow(22).nextProbablePrime();
+        var n = p.multiply(q);
+        BigInteger d = Factorizer.ecmAsync(n, 11_000, 1_100_000, 5_000, 2, Duration.ofMinutes(5)).join();
+        assertTrue(d.equals(p) || d.equals(q), d::toString);
+        assertEquals(BigInteger.ZERO, n.mod(d));
+
+        var small = BigInteger.valueOf(1_000_000_000_039L);             // 13 digits: the 15-digit level suffices
+        var n2 = small.multiply(BigInteger.TEN.pow(29).nextProbablePrime());
+        assertEquals(small, Factorizer.ecm(n2, 15, 1, Duration.ofMinutes(5)).orElseThrow());
+    }
+
+    @Test void ecmStopsOnBudgetAndTimeout() {
+        var big = BigInteger.TEN.pow(39).nextProbablePrime().multiply(BigInteger.TEN.pow(39).add(BigInteger.valueOf(7)).nextProbablePrime());
+        assertEquals(BigInteger.ONE, Factorizer.ecmAsync(big, 1_000, 100_000, 3, 2, null).join());
+        assertTrue(Factorizer.ecm(big, 40, 2, Duration.ofMillis(300)).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> Factorizer.ecmAsync(big, 1, 100, 1, 1, null));
+    }
+
+    @Test void siqsSplitsBalancedSemiprimes() {
+        var p = new BigInteger("9999999999999999961");                  // 19 digits each: out of reach for rho
+        var q = new BigInteger("10000000000000000051");
+        BigInteger d = Factorizer.siqs(p.multiply(q), 2);
+        assertTrue(d.equals(p) || d.equals(q), d::toString);
+        assertEquals(p, Factorizer.siqs(p.pow(3), 1));                  // perfect powers are answered by their root
+
+        var rnd = new java.util.Random(7);
+        var a = BigInteger.probablePrime(82, rnd);
+        var b = BigInteger.probablePrime(84, rnd);                     // 50 digits, through factor()
+        var f = Factorizer.factor(a.multiply(b).multiply(BigInteger.valueOf(6)));
+        assertEquals(Map.of(BigInteger.TWO, 1, BigInteger.valueOf(3), 1, a, 1, b, 1), f.factors());
+        assertThrows(IllegalArgumentException.class, () -> Factorizer.siqs(p, 1));
+    }
+
+    @Test void siqsFindsPolynomialsAtTheBottomOfItsRange() {
+        var n = new BigInteger("708457882678464332544395217086604989");  // k = 29: s primes once ran off the base
+        var d = Factorizer.siqs(n, 1);
+        assertTrue(d.compareTo(BigInteger.ONE) > 0 && d.compareTo(n) < 0 && n.mod(d).signum() == 0, d::toString);
+
+        var rnd = new java.util.Random(120);
+        for (int bits = 115; bits <= 125; bits++) {
+            var p = BigInteger.probablePrime(bits / 2, rnd);
+            var q = BigInteger.probablePrime(bits - bits / 2, rnd);
+            BigInteger f = Factorizer.siqs(p.multiply(q), 1);
+            assertTrue(f.equals(p) || f.equals(q), () -> p.multiply(q).toString());
+        }
+    }
+
+    @Test void compositesBeyondSiqsGetFullEcmDepth() {
+        var p = BigInteger.TEN.pow(15).nextProbablePrime();               // 16 digits
+        var q = BigInteger.probablePrime(300, new java.util.Random(20));
+        var opts = new FactorOptions(Duration.ofMinutes(2), Duration.ZERO, 0, 0, 20, true, 2, null);
+        Factorization f = Factorizer.factorAsync(p.multiply(q), opts).join();
+        assertFalse(f.method().contains("siqs"), f.method());
+        assertTrue(f.complete(), f::toString);
+        assertEquals("ecm", f.foundBy().get(p));
+    }
+
+    @Test void factorAsyncReportsStatusAndFinder() {
+        var q = BigInteger.TEN.pow(22).nextProbablePrime();
+        var n = BigInteger.valueOf(12).multiply(BigInteger.valueOf(1_000_000_007L)).multiply(q);
+        Factorization f = Factorizer.factorAsync(n, FactorOptions.DEFAULT.withThreads(2)).join();
+        assertTrue(f.complete());
+        assertEquals(n, f.reconstruct());
+        assertEquals(Status.PROVEN_PRIME, f.status().get(BigInteger.TWO));
+        assertEquals("trial", f.foundBy().get(BigInteger.valueOf(3)));
+        assertEquals(Status.PROBABLE_PRIME, f.status().get(q));           // above 2⁶³
+        assertEquals(Status.PROVEN_PRIME, f.status().get(BigInteger.valueOf(1_000_000_007L)));
+        assertTrue(f.composites().isEmpty());
+    }
+
+    @Test void factorAsyncDeadlineGivesPartialResult() {
+        var big = BigInteger.TEN.pow(39).nextProbablePrime().multiply(BigInteger.TEN.pow(39).add(BigInteger.valueOf(7)).nextProbablePrime());
+        var n = big.multiply(BigInteger.valueOf(10));
+        long t0 = System.nanoTime();
+        Factorization f = Factorizer.factorAsync(n, FactorOptions.DEFAULT.withThreads(2).withTimeout(Duration.ofMillis(300))).join();
+        assertTrue(System.nanoTime() - t0 < 5_000_000_000L);
+        assertFalse(f.complete());
+        assertEquals(n, f.reconstruct());
+        assertEquals(java.util.List.of(big), f.composites());
+        assertEquals(Status.COMPOSITE, f.status().get(big));
+        assertEquals("trial", f.foundBy().get(BigInteger.valueOf(5)));
+        assertTrue(f.method().startsWith("trial+rho"), f.method());
+    }
+
+    @Test void finalRhoRaceIsBoundedWithoutDeadline() {
+        var big = BigInteger.TEN.pow(39).nextProbablePrime().multiply(BigInteger.TEN.pow(39).add(BigInteger.valueOf(7)).nextProbablePrime());
+        var opts = new FactorOptions(null, Duration.ofMillis(10), 0, 0, 0, false, 2, null);   // final race: 1.2 s
+        long t0 = System.nanoTime();
+        Factorization f = Factorizer.factorAsync(big, opts).join();
+        assertTrue(System.nanoTime() - t0 < 10_000_000_000L);
+        assertFalse(f.complete());
+        assertEquals(Status.COMPOSITE, f.status().get(big));
+        assertEquals(java.util.List.of(big), f.composites());
+    }
+
+    @Test void factorAsyncCancelStopsWorkers() throws InterruptedException {
+        var big = BigInteger.TEN.pow(39).nextProbablePrime().multiply(BigInteger.TEN.pow(39).add(BigInteger.valueOf(7)).nextProbablePrime());
+        var future = Factorizer.factorAsync(big, FactorOptions.DEFAULT.withThreads(2).withRhoBudget(Duration.ZERO));
+        Thread.sleep(300);
+        future.cancel(true);
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (workersAlive() && System.nanoTime() < deadline) Thread.sleep(20);
+        assertFalse(workersAlive());
+    }
+
+    private static boolean workersAlive() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .anyMatch(t -> t.isAlive() && t.getName().matches("primely-(factor|rho|ecm|siqs)(-\\d+)?"));
+    }
+
+    /** The first prime base·k + 1 over k = 1, 2, … (k stays tiny). */
+    private static BigInteger smoothPlusOne(BigInteger base) {
+        for (long k = 1; ; k++) {
+            var p = base.multiply(BigInteger.valueOf(k)).add(BigInteger.ONE);
+            if (p.isProbablePrime(40)) return p;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package primely;
+
+import com.rlnkoo.primely.CrtPlan;
+import com.rlnkoo.primely.ModMath;
+import org.junit.jupiter.api.Test;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModMathTest {
+
+    @Test void batchInverseMatchesModInverse() {
+        var rnd = new Random(25);
+        var m = BigInteger.probablePrime(127, rnd);
+        var a = new BigInteger[100];
+        for (int i = 0; i < a.length; i++) a[i] = new BigInteger(200, rnd).add(BigInteger.ONE);
+        a[7] = a[7].negate();
+        var inv = ModMath.batchInverse(a, m);
+        for (int i = 0; i < a.length; i++) assertEquals(ModMath.modInverse(a[i], m), inv[i]);
+        assertEquals(0, ModMath.batchInverse(new BigInteger[0], m).length);
+
+        var bad = new BigInteger[]{BigInteger.ONE, BigInteger.valueOf(6), BigInteger.valueOf(5)};
+        var e = assertThrows(ArithmeticException.class, () -> ModMath.batchInverse(bad, BigInteger.valueOf(9)));
+        assertTrue(e.getMessage().contains("a[1]"));
+    }
+
+    @Test void crtPlanAgreesWithCrt() {
+        var rnd = new Random(26);
+        long[] moduli = new long[37];
+        for (int i = 0; i < moduli.length; i++) moduli[i] = BigInteger.valueOf((1L << 62) - 1000L * i).nextProbablePrime().longValue();
+        moduli[0] = 1L << 40;                                     // an even one too
+        var plan = CrtPlan.of(moduli);
+        List<BigInteger> ms = new ArrayList<>();
+        for (long m : moduli) ms.add(BigInteger.valueOf(m));
+        assertEquals(ms.stream().reduce(BigInteger.ONE, BigInteger::multiply), plan.modulus());
+
+        long[][] vectors = new long[50][moduli.length];
+        for (long[] v : vectors) for (int i = 0; i < v.length; i++) v[i] = rnd.nextLong();
+        var all = plan.reconstructAll(vectors);
+        for (int k = 0; k < vectors.length; k++) {
+            List<BigInteger> rs = new ArrayList<>();
+            for (int i = 0; i < moduli.length; i++) rs.add(BigInteger.valueOf(Math.floorMod(vectors[k][i], moduli[i])));
+            var x = ModMath.crt(rs, ms);
+            assertEquals(x, all[k]);
+            assertEquals(x, plan.reconstruct(vectors[k]));
+            for (int i = 0; i < moduli.length; i++) assertEquals(rs.get(i), x.mod(ms.get(i)));
+        }
+        assertEquals(BigInteger.valueOf(4), CrtPlan.of(7).reconstruct(new long[]{-3}));
+    }
+
+    @Test void crtPlanRejectsBadModuli() {
+        var e = assertThrows(IllegalArgumentException.class, () -> CrtPlan.of(5, 9, 7, 15));
+        assertTrue(e.getMessage().contains("not coprime"));
+        assertThrows(IllegalArgumentException.class, () -> CrtPlan.of(3, 1));
+        assertThrows(IllegalArgumentException.class, () -> CrtPlan.of());
+        assertThrows(IllegalArgumentException.class, () -> CrtPlan.of(3, 5).reconstruct(new long[]{1}));
+    }
+}
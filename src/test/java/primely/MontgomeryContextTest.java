@@ -0,0 +1,56 @@
+package primely;
+
+import com.rlnkoo.primely.MontgomeryContext;
+import org.junit.jupiter.api.Test;
+import java.math.BigInteger;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MontgomeryContextTest {
+
+    @Test void arithmeticMatchesBigInteger() {
+        Random rnd = new Random(5);
+        for (int bits : new int[]{3, 64, 65, 127, 512, 1031}) {
+            BigInteger n = new BigInteger(bits, rnd).setBit(bits - 1).setBit(0);
+            MontgomeryContext mc = new MontgomeryContext(n);
+            for (int t = 0; t < 20; t++) {
+                BigInteger a = new BigInteger(bits + 8, rnd).mod(n), b = new BigInteger(bits + 8, rnd).mod(n);
+                long[] A = mc.toMont(a), B = mc.toMont(b), out = mc.alloc();
+                mc.mul(A, B, out);
+                assertEquals(a.multiply(b).mod(n), mc.fromMont(out));
+                mc.sqr(A, out);
+                assertEquals(a.multiply(a).mod(n), mc.fromMont(out));
+                mc.add(A, B, out);
+                assertEquals(a.add(b).mod(n), mc.fromMont(out));
+                mc.sub(A, B, out);
+                assertEquals(a.subtract(b).mod(n), mc.fromMont(out));
+                mc.half(A, out);
+                assertEquals(a.multiply(BigInteger.TWO.modInverse(n)).mod(n), mc.fromMont(out));
+                mc.pow(A, b, out);
+                assertEquals(a.modPow(b, n), mc.fromMont(out));
+                mc.mul(A, A, A);
+                assertEquals(a.multiply(a).mod(n), mc.fromMont(A), "aliased output");
+            }
+        }
+    }
+
+    @Test void lucasSequenceMatchesRecurrence() {
+        BigInteger n = new BigInteger("1000000000000000000000000000057");
+        MontgomeryContext mc = new MontgomeryContext(n);
+        BigInteger P = BigInteger.valueOf(3), Q = BigInteger.valueOf(-2), D = P.multiply(P).subtract(Q.shiftLeft(2));
+        BigInteger u0 = BigInteger.ZERO, u1 = BigInteger.ONE, v0 = BigInteger.TWO, v1 = P;
+        long[] U = mc.alloc(), V = mc.alloc(), Qk = mc.alloc();
+        for (int k = 1; k <= 200; k++) {
+            mc.lucas(mc.toMont(P), mc.toMont(Q), mc.toMont(D), BigInteger.valueOf(k), U, V, Qk);
+            assertEquals(u1.mod(n), mc.fromMont(U), "U_" + k);
+            assertEquals(v1.mod(n), mc.fromMont(V), "V_" + k);
+            assertEquals(Q.pow(k).mod(n), mc.fromMont(Qk), "Q^" + k);
+            BigInteger u2 = P.multiply(u1).subtract(Q.multiply(u0)), v2 = P.multiply(v1).subtract(Q.multiply(v0));
+            u0 = u1; u1 = u2; v0 = v1; v1 = v2;
+        }
+    }
+
+    @Test void rejectsEvenModulus() {
+        assertThrows(IllegalArgumentException.class, () -> new MontgomeryContext(BigInteger.valueOf(100)));
+    }
+}
@@ -0,0 +1,83 @@
+package primely;
+
+import com.rlnkoo.primely.PrimeBitmap;
+import com.rlnkoo.primely.Sieve;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrimeBitmapTest {
+
+    @TempDir Path dir;
+
+    @Test void lookupsCountsAndRangesMatchSieve() throws IOException {
+        long limit = 3_000_017;
+        Path file = dir.resolve("small.pbm");
+        PrimeBitmap.write(file, limit, 1024);       // many small blocks
+        long[] primes = Sieve.primesBetween(0, limit).toArray();
+        BitSet isPrime = new BitSet();
+        for (long p : primes) isPrime.set((int) p);
+
+        try (PrimeBitmap bm = PrimeBitmap.open(file)) {
+            bm.verify();
+            assertEquals(limit, bm.limit());
+            for (int n = 0; n < limit; n++) {
+                if (isPrime.get(n) != bm.isPrime(n)) fail("n = " + n);
+            }
+            assertArrayEquals(primes, bm.primesBetween(0, limit).toArray());
+            assertEquals(primes.length, bm.pi(limit - 1));
+            assertEquals(primes.length, bm.countPrimes(0, limit));
+
+            long[][] ranges = {{0, 2}, {0, 3}, {2, 6}, {3, 8}, {6, 7}, {29, 31}, {30, 31}, {239, 241},
+                    {240, 481}, {30_719, 30_721}, {999_983, 1_000_004}, {1_234_567, 2_345_678}};
+            for (long[] r : ranges) {
+                long[] expected = Sieve.primesBetween(r[0], r[1]).toArray();
+                assertArrayEquals(expected, bm.primesBetween(r[0], r[1]).toArray(), () -> r[0] + ".." + r[1]);
+                assertEquals(expected.length, bm.countPrimes(r[0], r[1]), () -> r[0] + ".." + r[1]);
+                // element-wise traversal
+                var it = bm.primesBetween(r[0], r[1]).iterator();
+                for (long p : expected) assertEquals(p, it.nextLong());
+                assertFalse(it.hasNext());
+            }
+            assertThrows(IllegalArgumentException.class, () -> bm.isPrime(limit));
+        }
+    }
+
+    @Test void defaultBlocksAgreeWithCountPrimes() throws IOException {
+        long limit = 100_000_000;
+        Path file = dir.resolve("large.pbm");
+        PrimeBitmap.write(file, limit);
+        try (PrimeBitmap bm = PrimeBitmap.open(file)) {
+            assertEquals(5_761_455, bm.pi(limit - 1));
+            assertEquals(Sieve.countPrimes(12_345_678, 87_654_321), bm.countPrimes(12_345_678, 87_654_321));
+            assertTrue(bm.isPrime(99_999_989));
+        }
+    }
+
+    @Test void damageIsDetected() throws IOException {
+        Path file = dir.resolve("damaged.pbm");
+        PrimeBitmap.write(file, 1_000_000, 4096);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF}), ch.size() - 5000);
+        }
+        try (PrimeBitmap bm = PrimeBitmap.open(file)) {
+            assertThrows(IOException.class, bm::verify);
+        }
+
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.wrap(new byte[]{1}), 16);
+        }
+        assertThrows(IOException.class, () -> PrimeBitmap.open(file));
+        Files.write(file, new byte[100]);
+        assertThrows(IOException.class, () -> PrimeBitmap.open(file));
+    }
+}
@@ -0,0 +1,52 @@
+package primely;
+
+import com.rlnkoo.primely.Primes;
+import com.rlnkoo.primely.Sieve;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PrimeCountingTest {
+
+    @Test
+    void countPrimesMatchesEnumeration() {
+        long[][] ranges = {{0, 0}, {0, 3}, {2, 3}, {0, 1_000_000}, {999_000, 5_000_017}, {1_000_000_000_000L, 1_000_002_000_000L}};
+        for (long[] r : ranges) {
+            assertEquals(Sieve.primesBetween(r[0], r[1], 1 << 16, false, 1).count(), Sieve.countPrimes(r[0], r[1]),
+                    () -> r[0] + ".." + r[1]);
+        }
+    }
+
+    @Test
+    void piSmallValues() {
+        assertEquals(0, Primes.pi(0));
+        assertEquals(0, Primes.pi(1));
+        assertEquals(1, Primes.pi(2));
+        assertEquals(25, Primes.pi(100));
+        assertEquals(78_498, Primes.pi(1_000_000));
+    }
+
+    @Test
+    void piKnownValues() {
+        assertEquals(50_847_534L, Primes.pi(1_000_000_000L));
+        assertEquals(455_052_511L, Primes.pi(10_000_000_000L));
+        assertEquals(37_607_912_018L, Primes.pi(1_000_000_000_000L));
+    }
+
+    @Test
+    void nthPrimeKnownValues() {
+        assertEquals(2, Primes.nthPrime(1));
+        assertEquals(3, Primes.nthPrime(2));
+        assertEquals(541, Primes.nthPrime(100));
+        assertEquals(15_485_863L, Primes.nthPrime(1_000_000));
+        assertEquals(22_801_763_489L, Primes.nthPrime(1_000_000_000));
+    }
+
+    @Test
+    void nthPrimeInvertsPi() {
+        long n = 123_456_789;
+        long p = Primes.nthPrime(n);
+        assertEquals(n, Primes.pi(p));
+        assertEquals(n - 1, Primes.pi(p - 1));
+    }
+}
@@ -0,0 +1,46 @@
+package primely;
+
+import com.rlnkoo.primely.PrimeList;
+import com.rlnkoo.primely.Sieve;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrimeListTest {
+
+    @Test void matchesSieve() {
+        long[] expected = Sieve.primesBetween(0, 2_000_000).toArray();
+        PrimeList list = PrimeList.upTo(1_999_999);
+        assertEquals(expected.length, list.size());
+        assertArrayEquals(expected, list.stream().toArray());
+        assertArrayEquals(expected, list.stream().parallel().toArray());
+        for (int i = 0; i < expected.length; i += 97) assertEquals(expected[i], list.get(i));
+        assertEquals(expected[expected.length - 1], list.get(expected.length - 1));
+        assertEquals(7_919, list.nthPrime(1000));
+        assertEquals(0, list.indexOf(2));
+        assertEquals(999, list.indexOf(7_919));
+        assertEquals(-1, list.indexOf(7_917));
+        assertEquals(-1, list.indexOf(1));
+        assertEquals(-1, list.indexOf(2_000_003));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(expected.length));
+    }
+
+    @Test void wideGapsAndOffsetRanges() {
+        // 436 273 009 is followed by a gap of 282, the first one that needs the escaped form
+        long from = 436_000_000, to = 437_000_000;
+        long[] expected = Sieve.primesBetween(from, to).toArray();
+        PrimeList list = PrimeList.between(from, to);
+        assertArrayEquals(expected, list.stream().toArray());
+        int i = list.indexOf(436_273_009);
+        assertTrue(i >= 0);
+        assertEquals(436_273_291L, list.get(i + 1));
+        for (int k = 0; k < expected.length; k += 61) assertEquals(k, list.indexOf(expected[k]));
+    }
+
+    @Test void emptyAndTiny() {
+        assertEquals(0, PrimeList.upTo(1).size());
+        assertEquals(0, PrimeList.between(24, 29).stream().count());
+        assertArrayEquals(new long[]{2}, PrimeList.upTo(2).stream().toArray());
+        assertEquals(-1, PrimeList.upTo(1).indexOf(2));
+    }
+}
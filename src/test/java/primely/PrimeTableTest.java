@@ -0,0 +1,31 @@
+package primely;
+
+import com.rlnkoo.primely.PrimeTable;
+import org.junit.jupiter.api.Test;
+import java.math.BigInteger;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrimeTableTest {
+
+    @Test void smallBounds() {
+        assertArrayEquals(new int[0], PrimeTable.primesUpTo(1));
+        assertArrayEquals(new int[]{2}, PrimeTable.primesUpTo(2));
+        assertArrayEquals(new int[]{2, 3, 5, 7, 11, 13, 17, 19}, PrimeTable.primesUpTo(20));
+        assertEquals(168, PrimeTable.count(1000));
+        assertEquals(1229, PrimeTable.count(10_000));
+    }
+
+    @Test void growsBeyondInitialBound() {
+        assertEquals(664_579, PrimeTable.count(10_000_000));
+        int[] ps = PrimeTable.primesUpTo(10_000_000);
+        assertEquals(9_999_991, ps[ps.length - 1]);
+        assertEquals(168, PrimeTable.count(1000));
+    }
+
+    @Test void primorial() {
+        assertEquals(BigInteger.valueOf(2L * 3 * 5 * 7 * 11 * 13), PrimeTable.primorial(16));
+        BigInteger p = PrimeTable.primorial(1000);
+        for (int q : PrimeTable.primesUpTo(1000)) assertEquals(0, p.mod(BigInteger.valueOf(q)).signum());
+        assertSame(p, PrimeTable.primorial(1000));
+    }
+}
@@ -1,8 +1,12 @@
 package primely;
 
+import com.rlnkoo.primely.FactorOptions;
 import com.rlnkoo.primely.Primes;
+import com.rlnkoo.primely.Proofs;
 import org.junit.jupiter.api.Test;
 import java.math.BigInteger;
+import java.time.Duration;
+import java.util.Random;
 import static org.junit.jupiter.api.Assertions.*;
 
 class ProofsTest {
@@ -19,4 +23,82 @@ class ProofsTest {
         BigInteger p = new BigInteger("101");
         assertTrue(Primes.provePratt(p).isPresent(), "Pratt should succeed with fully factored n-1");
     }
-}
\ No newline at end of file
+
+    @Test void prattTreeProvesEveryFactor() {
+        var p = BigInteger.TWO.pow(127).subtract(BigInteger.ONE);
+        Proofs.PrattCert cert = Proofs.provePratt(p).orElseThrow();
+        assertTrue(cert.verify());
+        assertEquals(p.subtract(BigInteger.ONE), cert.factors().entrySet().stream()
+                .map(e -> e.getKey().pow(e.getValue())).reduce(BigInteger.ONE, BigInteger::multiply));
+        assertEquals(java.util.List.copyOf(cert.factors().keySet()), cert.children().stream().map(Proofs.PrattCert::n).toList());
+        assertTrue(cert.children().stream().anyMatch(c -> !c.isLeaf()));      // 77158673929 is above 2³²
+        assertTrue(cert.pretty().contains("77158673929 via a="));
+
+        // an element of order 2 is no witness; a leaf standing in for the wrong prime breaks the tree
+        var bad = new Proofs.PrattCert(p, p.subtract(BigInteger.ONE), cert.factors(), cert.children());
+        assertFalse(bad.verify());
+        var kids = new java.util.ArrayList<>(cert.children());
+        kids.set(0, Proofs.provePratt(BigInteger.valueOf(5)).orElseThrow());
+        assertFalse(new Proofs.PrattCert(p, cert.a(), cert.factors(), kids).verify());
+    }
+
+    @Test void prattRejectsComposites() {
+        assertTrue(Proofs.provePratt(BigInteger.valueOf(561)).isEmpty());
+        assertTrue(Proofs.provePratt(BigInteger.TWO.pow(67).subtract(BigInteger.ONE)).isEmpty());   // 193707721 · 761838257287
+        assertTrue(Proofs.provePratt(BigInteger.TWO).orElseThrow().verify());
+    }
+
+    @Test void pocklingtonVerifies() {
+        var p = BigInteger.TEN.pow(30).nextProbablePrime();
+        assertTrue(Primes.provePocklington(p).orElseThrow().verify());
+        assertFalse(new Proofs.PocklingtonCert(p, java.util.List.of()).verify());
+    }
+
+    /** Trial division and a few ms of rho: only what the test planted in n±1 gets factored. */
+    private static final FactorOptions WEAK = FactorOptions.DEFAULT.withTimeout(Duration.ofMillis(50))
+            .withRhoBudget(Duration.ZERO).withPMinus1(0, 0).withEcmDigits(0).withSiqs(false).withThreads(1);
+
+    @Test void blsCubeRootFromNMinus1() {
+        var rnd = new Random(3);
+        var F = smooth(172, 1, 600, rnd);                                // ≈ n^0.35, all found by trial division
+        var c = BigInteger.probablePrime(160, rnd).multiply(BigInteger.probablePrime(160, rnd));
+        var base = F.multiply(c).shiftLeft(1);
+        var n = BigInteger.ONE.add(base);
+        for (int m = 2; !n.isProbablePrime(40); m++) n = base.multiply(BigInteger.valueOf(m)).add(BigInteger.ONE);
+
+        Proofs.BlsCert cert = Proofs.proveBls(n, WEAK).orElseThrow();
+        assertTrue(cert.plus().isEmpty());
+        assertTrue(cert.verify());
+        assertTrue(Proofs.proveBls(n.add(BigInteger.TWO).multiply(n), WEAK).isEmpty());
+    }
+
+    @Test void blsCombinesNMinus1AndNPlus1() {
+        var rnd = new Random(5);
+        var F = smooth(189, 1, 600, rnd).shiftLeft(1);                  // n ≡ 1 (mod F), n ≡ −1 (mod G)
+        var G = smooth(189, 600, 1229, rnd).shiftLeft(1);
+        var L = F.multiply(G).shiftRight(1);
+        var Fh = F.shiftRight(1);
+        var Gh = G.shiftRight(1);
+        var r = F.multiply(Fh.modInverse(Gh).negate().mod(Gh)).add(BigInteger.ONE);
+        BigInteger n;
+        do {
+            n = r.add(L.multiply(new BigInteger(322, rnd)));
+        } while (!n.isProbablePrime(40));
+        assertEquals(BigInteger.ZERO, n.subtract(BigInteger.ONE).mod(F));
+        assertEquals(BigInteger.ZERO, n.add(BigInteger.ONE).mod(G));
+
+        Proofs.BlsCert cert = Proofs.proveBls(n, WEAK).orElseThrow();
+        assertFalse(cert.plus().isEmpty());
+        assertTrue(cert.verify());
+        assertTrue(cert.pretty().contains("n+1 ⊇"));
+        assertFalse(new Proofs.BlsCert(n, cert.minus(), cert.d(), java.util.List.of()).verify());   // n−1 alone falls short
+    }
+
+    /** Product of odd primes drawn from the table slice [from, to) until it has {@code bits} bits. */
+    private static BigInteger smooth(int bits, int from, int to, Random rnd) {
+        int[] ps = com.rlnkoo.primely.Factorizer.smallPrimesUpTo(10_000);
+        var m = BigInteger.ONE;
+        while (m.bitLength() < bits) m = m.multiply(BigInteger.valueOf(ps[from + rnd.nextInt(to - from)]));
+        return m;
+    }
+}
@@ -4,7 +4,13 @@ import com.rlnkoo.primely.Primes;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigInteger;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class RandomPrimeTest {
@@ -14,10 +20,49 @@ class RandomPrimeTest {
         assertTrue(Primes.isPrimeBPSW(p));
     }
 
+    @Test void randomPrimeHasExactBitLength() {
+        for (int bits : new int[]{2, 3, 10, 64, 65, 512}) {
+            BigInteger p = Primes.randomPrime(bits);
+            assertEquals(bits, p.bitLength());
+            assertTrue(p.isProbablePrime(50));
+        }
+    }
+
     @Test void randomSafePrimeSmallBits() {
         BigInteger p = Primes.randomSafePrime(32);
         BigInteger q = p.subtract(BigInteger.ONE).shiftRight(1);
         assertTrue(Primes.isPrimeBPSW(p));
         assertTrue(Primes.isPrimeBPSW(q));
     }
-}
\ No newline at end of file
+
+    @Test void randomSafePrimeJointSieve() {
+        for (int bits : new int[]{3, 4, 5, 16, 64, 65, 256}) {
+            BigInteger p = Primes.randomSafePrime(bits);
+            BigInteger q = p.shiftRight(1);
+            assertEquals(bits, p.bitLength());
+            assertTrue(p.isProbablePrime(50), p::toString);
+            assertTrue(q.isProbablePrime(50), q::toString);
+        }
+    }
+
+    @Test void randomSafePrimeParallel() {
+        BigInteger p = Primes.randomSafePrimeAsync(384, 2, Duration.ofMinutes(5)).join();
+        assertEquals(384, p.bitLength());
+        assertTrue(p.isProbablePrime(50));
+        assertTrue(p.shiftRight(1).isProbablePrime(50));
+    }
+
+    @Test void randomSafePrimeDeadline() {
+        assertEquals(Optional.empty(), Primes.randomSafePrime(8192, 2, Duration.ofMillis(50)));
+    }
+
+    @Test void randomSafePrimeCancel() {
+        CompletableFuture<BigInteger> f = Primes.randomSafePrimeAsync(8192, 2, null);
+        assertTrue(f.cancel(true));
+        assertThrows(CancellationException.class, f::join);
+    }
+
+    @Test void randomSafePrimeRejectsTinyBits() {
+        assertThrows(IllegalArgumentException.class, () -> Primes.randomSafePrime(2));
+    }
+}
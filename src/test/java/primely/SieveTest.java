@@ -2,6 +2,18 @@ package primely;
 
 import com.rlnkoo.primely.Sieve;
 import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class SieveTest {
@@ -16,4 +28,76 @@ class SieveTest {
         long[] got = Sieve.primesBetween(1, 20).toArray();
         assertArrayEquals(expected, got);
     }
-}
\ No newline at end of file
+
+    @Test void rangeEdgesMatchBigInteger() {
+        long[][] ranges = {{2, 3}, {3, 4}, {4, 5}, {10, 11}, {11, 12}, {0, 200}, {1_000_000, 1_000_200},
+                {999_983, 1_000_004}, {4_294_967_000L, 4_294_968_000L}, {1_000_000_000_000L, 1_000_000_000_301L}};
+        for (long[] r : ranges) {
+            long[] expected = LongStream.range(Math.max(r[0], 2), r[1])
+                    .filter(x -> BigInteger.valueOf(x).isProbablePrime(50)).toArray();
+            assertArrayEquals(expected, Sieve.primesBetween(r[0], r[1]).toArray(), () -> Arrays.toString(r));
+            assertArrayEquals(expected, Sieve.primesBetween(r[0], r[1], 1 << 16, true, 2).sorted().toArray());
+        }
+    }
+
+    @Test void everySmallStartKeepsPresievedPrimes() {
+        long[] all = {2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37, 41, 43, 47};
+        for (int from = 0; from < 48; from++) {
+            int f = from;
+            long[] expected = Arrays.stream(all).filter(p -> p >= f).toArray();
+            assertArrayEquals(expected, Sieve.primesBetween(from, 48).toArray(), () -> "from " + f);
+        }
+    }
+
+    @Test void shortWindowHighUp() {
+        long from = 1_000_000_000_000_000_000L, to = from + 20_000;
+        long[] expected = LongStream.range(from, to)
+                .filter(x -> BigInteger.valueOf(x).isProbablePrime(50)).toArray();
+        assertArrayEquals(expected, Sieve.primesBetween(from, to).toArray());
+    }
+
+    @Test void manySegments() {
+        long n = 3_000_001;
+        assertEquals(216_816, Sieve.primesBetween(0, n, 1 << 16, false, 1).count());
+        assertEquals(216_816, Sieve.primesBetween(0, n, 1 << 16, true, 2).count());
+        // element-wise traversal goes through tryAdvance rather than forEachRemaining
+        PrimitiveIterator.OfLong it = Sieve.primesBetween(0, n, 1 << 16, false, 1).iterator();
+        long prev = 0, cnt = 0;
+        while (it.hasNext()) {
+            long p = it.nextLong();
+            assertTrue(p > prev);
+            prev = p;
+            cnt++;
+        }
+        assertEquals(216_816, cnt);
+        assertEquals(2_999_999, prev);
+    }
+
+    @Test void pipelineOrderedOnCallerExecutor() throws InterruptedException {
+        ExecutorService ex = Executors.newFixedThreadPool(3);
+        try {
+            long[] expected = Sieve.primesBetween(0, 5_000_000).toArray();
+            long[] got = Sieve.primesBetween(0, 5_000_000, 1 << 16, ex, 3, true).toArray();
+            assertArrayEquals(expected, got);
+
+            long[] unordered = Sieve.primesBetween(0, 5_000_000, 1 << 16, ex, 3, false).toArray();
+            Arrays.sort(unordered);
+            assertArrayEquals(expected, unordered);
+
+            // split across a parallel stream, still in encounter order
+            Spliterator.OfLong spl = Sieve.primeSpliterator(0, 5_000_000, 1 << 16, ex, 2, true);
+            assertTrue(spl.hasCharacteristics(Spliterator.SORTED));
+            assertArrayEquals(expected, StreamSupport.longStream(spl, true).toArray());
+        } finally {
+            ex.shutdown();
+            assertTrue(ex.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test void pipelineAbandonedEarly() {
+        try (LongStream s = Sieve.primesBetween(1_000_000_000L, 2_000_000_000L, 1 << 16,
+                ForkJoinPool.commonPool(), 2, true)) {
+            assertEquals(1_000_000_007L, s.findFirst().getAsLong());
+        }
+    }
+}
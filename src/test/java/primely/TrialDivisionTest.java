@@ -0,0 +1,42 @@
+package primely;
+
+import com.rlnkoo.primely.PrimeTable;
+import com.rlnkoo.primely.TrialDivision;
+import org.junit.jupiter.api.Test;
+import java.math.BigInteger;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrialDivisionTest {
+
+    @Test void smallValues() {
+        assertFalse(TrialDivision.hasSmallFactor(BigInteger.ONE, 1000));
+        assertFalse(TrialDivision.hasSmallFactor(BigInteger.valueOf(997), 1000));
+        assertTrue(TrialDivision.hasSmallFactor(BigInteger.valueOf(4), 1000));
+        assertTrue(TrialDivision.hasSmallFactor(BigInteger.valueOf(-91), 10));
+        assertArrayEquals(new int[]{997}, TrialDivision.smallFactors(BigInteger.valueOf(997), 1000));
+        assertArrayEquals(new int[]{2, 3, 5}, TrialDivision.smallFactors(BigInteger.valueOf(600), 5));
+    }
+
+    @Test void matchesBigIntegerModOnLargeInputs() {
+        Random rnd = new Random(11);
+        int[] ps = PrimeTable.primesUpTo(10_000);
+        for (int t = 0; t < 50; t++) {
+            BigInteger n = new BigInteger(64 + rnd.nextInt(2048), rnd).multiply(BigInteger.valueOf(ps[rnd.nextInt(ps.length)]));
+            int[] got = TrialDivision.smallFactors(n, 10_000);
+            int k = 0;
+            for (int p : ps) {
+                if (n.mod(BigInteger.valueOf(p)).signum() == 0) assertEquals(p, got[k++], "n=" + n);
+            }
+            assertEquals(k, got.length);
+            assertTrue(TrialDivision.hasSmallFactor(n, 10_000));
+        }
+    }
+
+    @Test void boundIsRespected() {
+        BigInteger n = BigInteger.valueOf(1009L * 1013);
+        assertFalse(TrialDivision.hasSmallFactor(n, 1000));
+        assertArrayEquals(new int[]{1009}, TrialDivision.smallFactors(n, 1010));
+        assertArrayEquals(new int[]{1009, 1013}, TrialDivision.smallFactors(n, 20_000));
+    }
+}